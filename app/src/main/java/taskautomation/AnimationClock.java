@@ -0,0 +1,112 @@
+package taskautomation;
+
+import javax.swing.*;
+import java.util.*;
+
+// One Swing timer drives every animation on the EDT. Animations are registered under a key; registering
+// again under the same key replaces (cancels) the previous one. The timer only runs while something is
+// registered, so an idle UI costs nothing and a burst of updates never adds threads.
+public class AnimationClock {
+    public interface Animation {
+        // Advances to the given time; returns false once finished
+        boolean frame(long nowNanos);
+    }
+
+    private final javax.swing.Timer timer;
+    private final Map<Object, Animation> animations = new LinkedHashMap<>();
+    private final List<Runnable> frameEndHooks = new ArrayList<>();
+    private final Map<Object, Animation> startedDuringFrame = new LinkedHashMap<>();
+    private final List<Object> finished = new ArrayList<>();
+    private boolean ticking;
+    private long frameCount;
+
+    public AnimationClock(int framesPerSecond) {
+        timer = new javax.swing.Timer(Math.max(1, 1000 / framesPerSecond), e -> tick());
+        timer.setCoalesce(true);
+    }
+
+    // Register a hook run once per frame after all animations, for applying coalesced state
+    public void onFrameEnd(Runnable hook) {
+        runOnEdt(() -> frameEndHooks.add(hook));
+    }
+
+    public void start(Object key, Animation animation) {
+        runOnEdt(() -> {
+            if (ticking) {
+                startedDuringFrame.put(key, animation);
+                return;
+            }
+            animations.put(key, animation);
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        });
+    }
+
+    public void cancel(Object key) {
+        runOnEdt(() -> {
+            startedDuringFrame.remove(key);
+            if (ticking) {
+                finished.add(key);
+            } else {
+                animations.remove(key);
+            }
+        });
+    }
+
+    // Ensures at least one more frame runs, e.g. to flush state posted from another thread
+    public void requestFrame() {
+        runOnEdt(() -> {
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        });
+    }
+
+    public boolean isActive(Object key) {
+        return animations.containsKey(key);
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public void stop() {
+        runOnEdt(() -> {
+            animations.clear();
+            timer.stop();
+        });
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        frameCount++;
+        ticking = true;
+        for (Map.Entry<Object, Animation> entry : animations.entrySet()) {
+            if (!entry.getValue().frame(now)) {
+                finished.add(entry.getKey());
+            }
+        }
+        for (Object key : finished) {
+            animations.remove(key);
+        }
+        finished.clear();
+        ticking = false;
+        animations.putAll(startedDuringFrame);
+        startedDuringFrame.clear();
+        for (Runnable hook : frameEndHooks) {
+            hook.run();
+        }
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    private static void runOnEdt(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            r.run();
+        } else {
+            SwingUtilities.invokeLater(r);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package taskautomation;
+
+import java.awt.*;
+
+// MacroContext backed by a java.awt.Robot and a ProcessLauncher. Without a Robot up front, one is
+// created the first time a step needs the keyboard or the screen, so launch-only macros never
+// touch AWT.
+public class AutomationContext implements MacroContext {
+    private static final long SCREEN_POLL_MS = 15;
+
+    private volatile Robot robot;
+    private volatile TextInjector textInjector;
+    private final ProcessLauncher launcher;
+    private final Object inputLock = new Object();
+    private volatile TaskMetrics metrics;
+    // Screen waits run on engine workers in parallel; each thread keeps its own capture buffers
+    private final ThreadLocal<ScreenWatcher> watchers =
+        ThreadLocal.withInitial(() -> new ScreenWatcher(ScreenWatcher.robotSource(robot()), SCREEN_POLL_MS));
+
+    public AutomationContext(Robot robot, ProcessLauncher launcher) {
+        this.robot = robot;
+        this.textInjector = new TextInjector(robot);
+        this.launcher = launcher;
+    }
+
+    public AutomationContext(ProcessLauncher launcher) {
+        this.launcher = launcher;
+    }
+
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private Robot robot() {
+        Robot r = robot;
+        if (r == null) {
+            synchronized (this) {
+                if (robot == null) {
+                    try {
+                        Robot created = new Robot();
+                        textInjector = new TextInjector(created);
+                        robot = created;
+                    } catch (AWTException | HeadlessException e) {
+                        throw new IllegalStateException("Robot initialization failed: " + e.getMessage(), e);
+                    }
+                }
+                r = robot;
+            }
+        }
+        return r;
+    }
+
+    // Creates the Robot now instead of on the first keyboard or screen step
+    public void prepareRobot() {
+        robot();
+    }
+
+    @Override
+    public ProcessLauncher.Launch launch(String[] command) throws Exception {
+        return launcher.startDetached(command);
+    }
+
+    @Override
+    public ProcessLauncher.Result run(String[] command, long timeoutMs) throws Exception {
+        return launcher.start(command, timeoutMs).await(0);
+    }
+
+    // Interruptible replacement for robot.delay so cancellation takes effect mid-wait
+    @Override
+    public void pause(int ms) throws InterruptedException {
+        Thread.sleep(ms);
+    }
+
+    @Override
+    public void type(String text, TextInjector.Strategy strategy) throws InterruptedException {
+        robot();
+        TextInjector.Result result = textInjector.type(text, strategy);
+        System.out.println("[typing] " + result);
+    }
+
+    // Presses keys in order and releases them in reverse, always releasing what was pressed
+    @Override
+    public void chord(int[] keyCodes) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Robot robot = robot();
+        int pressed = 0;
+        try {
+            for (int keyCode : keyCodes) {
+                robot.keyPress(keyCode);
+                pressed++;
+            }
+        } finally {
+            for (int i = pressed - 1; i >= 0; i--) {
+                robot.keyRelease(keyCodes[i]);
+            }
+        }
+    }
+
+    @Override
+    public void markScreen(int[] region) {
+        watchers.get().mark(region == null ? null : new Rectangle(region[0], region[1], region[2], region[3]));
+    }
+
+    @Override
+    public boolean waitForScreen(int[] region, int quietMs, int timeoutMs) throws InterruptedException {
+        ScreenWatcher watcher = watchers.get();
+        Rectangle r = region == null ? null : new Rectangle(region[0], region[1], region[2], region[3]);
+        ScreenWatcher.Result result = quietMs == 0
+            ? watcher.waitForChange(r, timeoutMs)
+            : watcher.waitForStill(r, quietMs, timeoutMs);
+        System.out.println("[screen] " + (quietMs == 0 ? "change: " : "still " + quietMs + " ms: ") + result);
+        return result.matched;
+    }
+
+    @Override
+    public void stepFinished(MacroPlan plan, int step, long nanos) {
+        TaskEngine.TaskHandle task = TaskEngine.current();
+        if (task != null) {
+            task.recordStep(plan.getStepLabel(step), nanos);
+        }
+        TaskMetrics m = metrics;
+        if (m != null) {
+            m.recordStep(plan.getName(), plan.getStepLabel(step), nanos);
+        }
+    }
+
+    @Override
+    public Object inputLock() {
+        return inputLock;
+    }
+}
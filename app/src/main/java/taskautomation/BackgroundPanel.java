@@ -0,0 +1,222 @@
+package taskautomation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Radial gradient background with particles, rendered into a back buffer:
+// the gradient is rendered once per panel size and cached as pixels, and each frame only the
+// tiles touched by a particle's old or new position are restored and redrawn. Swing then repaints
+// just the bounding box of those tiles, which is a plain image blit.
+public class BackgroundPanel extends JPanel {
+    private static final int TILE = 32;
+    private static final int DOT = 3;
+    private static final int DOT_COLOR = 0xB0FFFF;
+
+    private ParticleField particles;
+    private BufferedImage backBuffer;
+    private int[] pixels;
+    private int[] gradient;
+    private int bufferWidth;
+    private int bufferHeight;
+    private int tilesX;
+    private int tilesY;
+    private boolean[] dirtyTiles;
+    private boolean fullRedraw = true;
+    private long lastStep;
+
+    // FPS / frame-time overlay
+    private boolean overlayVisible;
+    private final long[] frameIntervals = new long[60];
+    private int frameIndex;
+    private long lastPaint;
+    private long lastStepNanos;
+    private final Font overlayFont = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private final Color overlayColor = new Color(0xE0FFFFFF, true);
+    private final Rectangle overlayBounds = new Rectangle(6, 4, 260, 16);
+
+    public BackgroundPanel(int particleCount, int width, int height) {
+        particles = new ParticleField(particleCount, width, height, System.nanoTime());
+        // Every pixel is painted from the back buffer, so Swing can skip whatever is underneath
+        setOpaque(true);
+    }
+
+    public void setOverlayVisible(boolean visible) {
+        overlayVisible = visible;
+        repaint();
+    }
+
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    public int getParticleCount() {
+        return particles.size();
+    }
+
+    // Replaces the particles, e.g. to start with none and add them once the window is up
+    public void setParticleCount(int particleCount) {
+        particles = new ParticleField(particleCount, Math.max(1, getWidth()), Math.max(1, getHeight()), System.nanoTime());
+        fullRedraw = true;
+        repaint();
+    }
+
+    // Advances the particles and refreshes the back buffer; call from the animation clock (EDT)
+    public void step(long now) {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (w != bufferWidth || h != bufferHeight) {
+            allocate(w, h);
+        }
+        float dt = lastStep == 0 ? 0f : Math.min(0.1f, (now - lastStep) / 1e9f);
+        lastStep = now;
+
+        float[] x = particles.x;
+        float[] y = particles.y;
+        int n = particles.size();
+        for (int i = 0; i < n; i++) {
+            markDirty((int) x[i], (int) y[i]);
+        }
+        particles.update(dt, w - DOT, h - DOT);
+        for (int i = 0; i < n; i++) {
+            markDirty((int) x[i], (int) y[i]);
+        }
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                int t = ty * tilesX + tx;
+                if (!fullRedraw && !dirtyTiles[t]) {
+                    continue;
+                }
+                dirtyTiles[t] = false;
+                int x0 = tx * TILE;
+                int y0 = ty * TILE;
+                int tw = Math.min(TILE, w - x0);
+                int th = Math.min(TILE, h - y0);
+                for (int row = y0; row < y0 + th; row++) {
+                    System.arraycopy(gradient, row * w + x0, pixels, row * w + x0, tw);
+                }
+                if (x0 < minX) minX = x0;
+                if (y0 < minY) minY = y0;
+                if (x0 + tw > maxX) maxX = x0 + tw;
+                if (y0 + th > maxY) maxY = y0 + th;
+            }
+        }
+        fullRedraw = false;
+        // Dots are written opaque from the cached gradient, so redrawing one twice is harmless
+        for (int i = 0; i < n; i++) {
+            drawDot((int) x[i], (int) y[i], w, h);
+        }
+        lastStepNanos = System.nanoTime() - start;
+
+        if (overlayVisible) {
+            repaint(overlayBounds);
+        }
+        if (maxX >= 0) {
+            repaint(minX, minY, maxX - minX, maxY - minY);
+        }
+    }
+
+    private void allocate(int w, int h) {
+        bufferWidth = w;
+        bufferHeight = h;
+        backBuffer = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) backBuffer.getRaster().getDataBuffer()).getData();
+
+        BufferedImage gradientImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = gradientImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setPaint(new RadialGradientPaint(
+            w / 2f, h / 2f, w / 2f,
+            new float[]{0.0f, 1.0f},
+            new Color[]{new Color(0x4B0082), new Color(0x1C2526)}
+        ));
+        g2d.fillRect(0, 0, w, h);
+        g2d.dispose();
+        gradient = ((DataBufferInt) gradientImage.getRaster().getDataBuffer()).getData();
+
+        tilesX = (w + TILE - 1) / TILE;
+        tilesY = (h + TILE - 1) / TILE;
+        dirtyTiles = new boolean[tilesX * tilesY];
+        fullRedraw = true;
+    }
+
+    private void markDirty(int px, int py) {
+        int tx0 = clamp(px / TILE, tilesX);
+        int ty0 = clamp(py / TILE, tilesY);
+        int tx1 = clamp((px + DOT) / TILE, tilesX);
+        int ty1 = clamp((py + DOT) / TILE, tilesY);
+        dirtyTiles[ty0 * tilesX + tx0] = true;
+        dirtyTiles[ty0 * tilesX + tx1] = true;
+        dirtyTiles[ty1 * tilesX + tx0] = true;
+        dirtyTiles[ty1 * tilesX + tx1] = true;
+    }
+
+    private static int clamp(int v, int limit) {
+        return v < 0 ? 0 : (v >= limit ? limit - 1 : v);
+    }
+
+    private void drawDot(int px, int py, int w, int h) {
+        for (int dy = 0; dy < DOT; dy++) {
+            int yy = py + dy;
+            if (yy < 0 || yy >= h) continue;
+            for (int dx = 0; dx < DOT; dx++) {
+                int xx = px + dx;
+                if (xx < 0 || xx >= w) continue;
+                // Plus-shaped core at 75%, corners at 30%
+                int alpha = (dx == 1 || dy == 1) ? 192 : 77;
+                int idx = yy * w + xx;
+                pixels[idx] = blend(gradient[idx], DOT_COLOR, alpha);
+            }
+        }
+    }
+
+    private static int blend(int under, int over, int alpha) {
+        int inv = 255 - alpha;
+        int r = (((under >> 16) & 0xFF) * inv + ((over >> 16) & 0xFF) * alpha) / 255;
+        int g = (((under >> 8) & 0xFF) * inv + ((over >> 8) & 0xFF) * alpha) / 255;
+        int b = ((under & 0xFF) * inv + (over & 0xFF) * alpha) / 255;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (backBuffer == null || bufferWidth != getWidth() || bufferHeight != getHeight()) {
+            step(System.nanoTime());
+        }
+        if (backBuffer != null) {
+            g.drawImage(backBuffer, 0, 0, null);
+        }
+        if (overlayVisible) {
+            paintOverlay(g);
+        }
+    }
+
+    private void paintOverlay(Graphics g) {
+        long now = System.nanoTime();
+        if (lastPaint != 0) {
+            frameIntervals[frameIndex] = now - lastPaint;
+            frameIndex = (frameIndex + 1) % frameIntervals.length;
+        }
+        lastPaint = now;
+        long total = 0;
+        int samples = 0;
+        for (long interval : frameIntervals) {
+            if (interval > 0) {
+                total += interval;
+                samples++;
+            }
+        }
+        double fps = total == 0 ? 0 : samples * 1e9 / total;
+        g.setFont(overlayFont);
+        g.setColor(overlayColor);
+        g.drawString(String.format("%5.1f FPS  %6.3f ms/frame  %d particles", fps, lastStepNanos / 1e6, particles.size()),
+            overlayBounds.x, overlayBounds.y + 12);
+    }
+}
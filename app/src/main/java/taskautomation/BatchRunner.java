@@ -0,0 +1,261 @@
+package taskautomation;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+// Headless entry point: runs tasks without building any UI.
+//
+//   java taskautomation.BatchRunner [--parallel N] [--typing STRATEGY] [--macros DIR] [--metrics] [--journal DIR]
+//                                    [--simulate] [--repeat N] <task-list | ->
+//   java -jar task-automation.jar --batch ...   (same, via the main class)
+//
+// The task list (a file, or stdin for "-") holds one entry per line: a macro name such as
+// "Open Browser", or a path to a .macro file. Blank lines and # comments are ignored. A Robot is
+// only created if a macro actually types or presses keys. Prints a per-task summary and exits
+// 0 when every task completed, 1 if any failed or was cancelled, 2 on bad input. --metrics adds
+// per-task and per-step latency percentiles; --journal records the runs in an execution journal.
+// --simulate runs against a SimulatedContext instead of the keyboard and real programs, and reports
+// virtual time, event counts, key-ordering violations and throughput; --repeat runs the list N times.
+public class BatchRunner {
+    private static final long MAIN_ENTRY_NANOS = System.nanoTime();
+    private static final int MAX_ROWS = 50;
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        int parallel = 1;
+        boolean printMetrics = false;
+        TextInjector.Strategy strategyOverride = null;
+        String macroDir = null;
+        String journalDir = null;
+        String source = null;
+        boolean simulate = false;
+        int repeat = 1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--parallel":
+                        parallel = positive("--parallel", args, ++i);
+                        break;
+                    case "--typing":
+                        String typing = args[++i];
+                        try {
+                            strategyOverride = TextInjector.Strategy.valueOf(typing.toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("unknown typing strategy '" + typing + "', expected one of "
+                                + Arrays.toString(TextInjector.Strategy.values()));
+                        }
+                        break;
+                    case "--metrics":
+                        printMetrics = true;
+                        break;
+                    case "--journal":
+                        journalDir = args[++i];
+                        break;
+                    case "--simulate":
+                        simulate = true;
+                        break;
+                    case "--repeat":
+                        repeat = positive("--repeat", args, ++i);
+                        break;
+                    case "--macros":
+                        macroDir = args[++i];
+                        break;
+                    default:
+                        if (source != null) throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+                        source = args[i];
+                        break;
+                }
+            }
+            if (source == null) {
+                throw new IllegalArgumentException("missing task list");
+            }
+        } catch (RuntimeException e) {
+            err.println("batch: " + e.getMessage());
+            err.println("usage: java taskautomation.BatchRunner [--parallel N] [--typing STRATEGY] [--macros DIR] [--metrics] [--journal DIR] [--simulate] [--repeat N] <task-list | ->");
+            return 2;
+        }
+
+        MacroLibrary library = macroDir == null ? new MacroLibrary() : new MacroLibrary(Paths.get(macroDir));
+        for (String error : library.getErrors()) {
+            err.println("[macros] " + error);
+        }
+        List<MacroPlan> plans = new ArrayList<>();
+        try {
+            plans = resolve(readLines(source), library);
+        } catch (IOException | IllegalArgumentException e) {
+            err.println("batch: " + e.getMessage());
+            return 2;
+        }
+        if (plans.isEmpty()) {
+            err.println("batch: no tasks to run");
+            return 2;
+        }
+        ProcessLauncher launcher = new ProcessLauncher();
+        TaskEngine engine = new TaskEngine(parallel, plans.size() * repeat);
+        TaskMetrics metrics = new TaskMetrics();
+        engine.addListener(metrics);
+        MacroContext context;
+        SimulatedContext simulation = null;
+        if (simulate) {
+            simulation = new SimulatedContext(0);
+            simulation.setMetrics(metrics);
+            context = simulation;
+        } else {
+            AutomationContext automation = new AutomationContext(launcher);
+            automation.setMetrics(metrics);
+            context = automation;
+        }
+        ExecutionJournal journal = null;
+        if (journalDir != null) {
+            try {
+                journal = new ExecutionJournal(Paths.get(journalDir), 4 << 20, 32, false);
+                engine.addListener(journal);
+            } catch (IOException e) {
+                err.println("batch: journal disabled: " + e);
+            }
+        }
+        CountDownLatch finished = new CountDownLatch(plans.size() * repeat);
+        engine.addListener(handle -> {
+            if (handle.isDone()) {
+                finished.countDown();
+            }
+        });
+
+        List<TaskEngine.TaskHandle> handles = new ArrayList<>();
+        long submitStart = System.nanoTime();
+        for (int r = 0; r < repeat; r++) {
+            for (MacroPlan plan : plans) {
+                TextInjector.Strategy strategy = strategyOverride != null ? strategyOverride : plan.getTyping();
+                handles.add(engine.submit(plan.getName(), () -> plan.run(context, strategy)));
+            }
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            engine.cancelAll();
+            Thread.currentThread().interrupt();
+        }
+
+        long elapsed = System.nanoTime() - submitStart;
+        int failures = 0;
+        int omitted = 0;
+        long firstStart = 0;
+        out.printf("%-4s %-32s %-10s %10s  %s%n", "#", "task", "result", "ms", "error");
+        for (TaskEngine.TaskHandle handle : handles) {
+            long started = handle.getStartedNanos();
+            long ms = started == 0 ? 0 : (handle.getFinishedNanos() - started) / 1_000_000;
+            if (started != 0 && (firstStart == 0 || started < firstStart)) {
+                firstStart = started;
+            }
+            Throwable error = handle.getError();
+            if (handle.getState() != TaskEngine.State.COMPLETED) {
+                failures++;
+            } else if (handles.size() > MAX_ROWS) {
+                omitted++;
+                continue;
+            }
+            out.printf("%-4d %-32s %-10s %10d  %s%n", handle.getId(), handle.getName(), handle.getState(), ms,
+                error == null ? "" : String.valueOf(error.getMessage()));
+        }
+        if (omitted > 0) {
+            out.printf("     (%d completed task(s) not listed)%n", omitted);
+        }
+        reportStartup(out, firstStart);
+        out.printf("%d task(s), %d failed%n", handles.size(), failures);
+        if (simulation != null) {
+            out.printf("simulated %d task(s) in %.1f ms (%.0f tasks/s); %.1f s of virtual time, %d events (%d keys)%n",
+                handles.size(), elapsed / 1e6, handles.size() * 1e9 / Math.max(1, elapsed), simulation.getVirtualNanos() / 1e9,
+                simulation.getEventCount(), simulation.getKeyEventCount());
+            out.printf("%d key-ordering violation(s)%n", simulation.getViolationCount());
+            for (String violation : simulation.getViolations()) {
+                out.println("  " + violation);
+            }
+            if (simulation.getViolationCount() > 0) {
+                failures++;
+            }
+        }
+        if (printMetrics) {
+            for (String line : metrics.getReport(simulation != null)) {
+                out.println(line);
+            }
+        }
+        engine.shutdown();
+        launcher.shutdown();
+        if (journal != null) {
+            journal.close();
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    // The value of a count option such as --parallel, which must be a whole number of at least 1
+    private static int positive(String option, String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a number");
+        }
+        int value;
+        try {
+            value = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects a whole number, not '" + args[i] + "'");
+        }
+        if (value < 1) {
+            throw new IllegalArgumentException(option + " must be at least 1, not " + value);
+        }
+        return value;
+    }
+
+    // Measured after the run so the management classes aren't loaded before the first task
+    private static void reportStartup(PrintStream out, long firstStartNanos) {
+        if (firstStartNanos == 0) {
+            return;
+        }
+        long sinceMain = firstStartNanos - MAIN_ENTRY_NANOS;
+        long uptimeAtMeasure = ManagementFactory.getRuntimeMXBean().getUptime();
+        long sinceJvmStart = uptimeAtMeasure * 1_000_000L - (System.nanoTime() - firstStartNanos);
+        out.printf("first task started %.1f ms after JVM start (%.1f ms in runner setup)%n",
+            sinceJvmStart / 1e6, sinceMain / 1e6);
+    }
+
+    private static List<String> readLines(String source) throws IOException {
+        BufferedReader reader = source.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader r = reader) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static List<MacroPlan> resolve(List<String> lines, MacroLibrary library) throws IOException {
+        List<MacroPlan> plans = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String entry = lines.get(i).trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            MacroPlan plan;
+            if (entry.endsWith(".macro")) {
+                Path file = Paths.get(entry);
+                plan = MacroCompiler.compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), file.toString());
+            } else {
+                plan = library.get(entry);
+                if (plan == null) {
+                    throw new IllegalArgumentException("line " + (i + 1) + ": unknown task '" + entry + "'");
+                }
+            }
+            plans.add(plan);
+        }
+        return plans;
+    }
+}
@@ -0,0 +1,299 @@
+package taskautomation;
+
+import java.util.*;
+
+// Fuzzy lookup of spoken commands. Phrases are normalized (lowercase, punctuation and filler words
+// such as "please" dropped, spaces removed so "note pad" == "notepad") and indexed once by character
+// trigram into a flat array of posting lists. A query counts shared trigrams to pick a short list,
+// then ranks it by edit distance with a bonus for prefix matches. Scratch buffers are per thread,
+// so lookups allocate only a few small arrays and searches may run concurrently once built.
+public class CommandIndex<T> {
+    public static final class Match<T> {
+        public final T target;
+        public final String phrase;
+        public final double score;
+
+        Match(T target, String phrase, double score) {
+            this.target = target;
+            this.phrase = phrase;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%.2f)", phrase, score);
+        }
+    }
+
+    private static final Set<String> FILLER_WORDS = new HashSet<>(Arrays.asList(
+        "please", "can", "could", "would", "you", "the", "a", "an", "me", "for", "now", "hey", "just", "up", "kindly"));
+    private static final int ALPHABET = 38; // a-z, 0-9, boundary, other
+    private static final int BOUNDARY = 36;
+    private static final int OTHER = 37;
+    private static final int SHORTLIST = 24;
+
+    private final List<String> pendingPhrases = new ArrayList<>();
+    private final List<T> pendingTargets = new ArrayList<>();
+    private volatile boolean built;
+
+    private String[] phrases;
+    private String[] keys;
+    private Object[] targets;
+    private int[][] postings;
+    private Map<String, Integer> exact;
+    private int[] sortedByKey;
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(phrases.length);
+        }
+    };
+
+    private static final class Scratch {
+        final int[] counts;
+        final int[] touched;
+        final int[] shortlist = new int[SHORTLIST];
+        final int[] shortlistCounts = new int[SHORTLIST];
+        int[] row0 = new int[64];
+        int[] row1 = new int[64];
+
+        Scratch(int size) {
+            counts = new int[size];
+            touched = new int[size];
+        }
+    }
+
+    public synchronized void add(String phrase, T target) {
+        if (built) {
+            throw new IllegalStateException("index already built");
+        }
+        pendingPhrases.add(phrase);
+        pendingTargets.add(target);
+    }
+
+    public int size() {
+        return built ? phrases.length : pendingPhrases.size();
+    }
+
+    public synchronized CommandIndex<T> build() {
+        if (built) {
+            return this;
+        }
+        int n = pendingPhrases.size();
+        phrases = pendingPhrases.toArray(new String[0]);
+        keys = new String[n];
+        targets = pendingTargets.toArray();
+        exact = new HashMap<>(n * 2);
+        int[] postingSizes = new int[ALPHABET * ALPHABET * ALPHABET];
+        for (int i = 0; i < n; i++) {
+            keys[i] = normalize(phrases[i]);
+            exact.putIfAbsent(keys[i], i);
+            forEachTrigram(keys[i], code -> postingSizes[code]++);
+        }
+        postings = new int[postingSizes.length][];
+        int[] fill = new int[postingSizes.length];
+        for (int i = 0; i < n; i++) {
+            int entry = i;
+            forEachTrigram(keys[i], code -> {
+                if (postings[code] == null) {
+                    postings[code] = new int[postingSizes[code]];
+                }
+                postings[code][fill[code]++] = entry;
+            });
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+        sortedByKey = new int[n];
+        for (int i = 0; i < n; i++) sortedByKey[i] = order[i];
+        pendingPhrases.clear();
+        pendingTargets.clear();
+        built = true;
+        return this;
+    }
+
+    // Best match scoring at least minScore, or null
+    public Match<T> best(String query, double minScore) {
+        List<Match<T>> matches = search(query, 1);
+        return matches.isEmpty() || matches.get(0).score < minScore ? null : matches.get(0);
+    }
+
+    // Ranked candidates, best first, at most one per target
+    @SuppressWarnings("unchecked")
+    public List<Match<T>> search(String query, int limit) {
+        if (!built) {
+            build();
+        }
+        String key = normalize(query);
+        List<Match<T>> results = new ArrayList<>(limit);
+        if (key.isEmpty() || phrases.length == 0) {
+            return results;
+        }
+        Integer hit = exact.get(key);
+        if (hit != null && limit == 1) {
+            results.add(new Match<>((T) targets[hit], phrases[hit], 1.0));
+            return results;
+        }
+
+        Scratch s = scratch.get();
+        int[] counts = s.counts;
+        int[] touched = s.touched;
+        int[] touchedCount = {0};
+        forEachTrigram(key, code -> {
+            int[] list = postings[code];
+            if (list == null) return;
+            for (int entry : list) {
+                if (counts[entry]++ == 0) {
+                    touched[touchedCount[0]++] = entry;
+                }
+            }
+        });
+
+        // Keep the SHORTLIST entries sharing the most trigrams (insertion into a small sorted array)
+        int listed = 0;
+        for (int t = 0; t < touchedCount[0]; t++) {
+            int entry = touched[t];
+            int c = counts[entry];
+            counts[entry] = 0;
+            if (listed == SHORTLIST && c <= s.shortlistCounts[listed - 1]) continue;
+            int pos = listed < SHORTLIST ? listed++ : SHORTLIST - 1;
+            while (pos > 0 && s.shortlistCounts[pos - 1] < c) {
+                s.shortlist[pos] = s.shortlist[pos - 1];
+                s.shortlistCounts[pos] = s.shortlistCounts[pos - 1];
+                pos--;
+            }
+            s.shortlist[pos] = entry;
+            s.shortlistCounts[pos] = c;
+        }
+
+        // Entries the query is a prefix of, e.g. "open note" -> "opennotepad"
+        int prefixStart = lowerBound(key);
+        int prefixEnd = prefixStart;
+        while (prefixEnd < sortedByKey.length && prefixEnd - prefixStart < SHORTLIST && keys[sortedByKey[prefixEnd]].startsWith(key)) {
+            prefixEnd++;
+        }
+
+        double[] scores = new double[listed + prefixEnd - prefixStart];
+        int[] entries = new int[scores.length];
+        int m = 0;
+        for (int i = 0; i < listed; i++) {
+            entries[m] = s.shortlist[i];
+            scores[m++] = score(key, keys[s.shortlist[i]], s);
+        }
+        for (int i = prefixStart; i < prefixEnd; i++) {
+            entries[m] = sortedByKey[i];
+            scores[m++] = score(key, keys[sortedByKey[i]], s);
+        }
+
+        // Selection by score, one result per target
+        boolean[] used = new boolean[m];
+        while (results.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < m; i++) {
+                if (!used[i] && (best < 0 || scores[i] > scores[best])) best = i;
+            }
+            if (best < 0) break;
+            used[best] = true;
+            T target = (T) targets[entries[best]];
+            boolean duplicate = false;
+            for (Match<T> r : results) {
+                if (r.target == target) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                results.add(new Match<>(target, phrases[entries[best]], scores[best]));
+            }
+        }
+        return results;
+    }
+
+    private double score(String query, String key, Scratch s) {
+        if (key.equals(query)) {
+            return 1.0;
+        }
+        if (key.startsWith(query)) {
+            // Partial commands rank by how much of the phrase was said
+            return 0.7 + 0.25 * query.length() / key.length();
+        }
+        int distance = editDistance(query, key, s);
+        return Math.max(0.0, 1.0 - (double) distance / Math.max(query.length(), key.length()));
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = sortedByKey.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[sortedByKey[mid]].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int editDistance(String a, String b, Scratch s) {
+        int m = b.length();
+        if (s.row0.length <= m) {
+            s.row0 = new int[m + 1];
+            s.row1 = new int[m + 1];
+        }
+        int[] prev = s.row0;
+        int[] cur = s.row1;
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[m];
+    }
+
+    private interface TrigramSink {
+        void accept(int code);
+    }
+
+    private static void forEachTrigram(String key, TrigramSink sink) {
+        int n = key.length();
+        int a = BOUNDARY;
+        int b = n > 0 ? symbol(key.charAt(0)) : BOUNDARY;
+        for (int i = 1; i <= n; i++) {
+            int c = i < n ? symbol(key.charAt(i)) : BOUNDARY;
+            sink.accept((a * ALPHABET + b) * ALPHABET + c);
+            a = b;
+            b = c;
+        }
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= '0' && c <= '9') return 26 + (c - '0');
+        return OTHER;
+    }
+
+    // Lowercase words with filler removed, joined without spaces
+    static String normalize(String phrase) {
+        StringBuilder out = new StringBuilder(phrase.length());
+        int i = 0;
+        int n = phrase.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(phrase.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(phrase.charAt(i))) i++;
+            if (start < i) {
+                String word = phrase.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!FILLER_WORDS.contains(word)) {
+                    out.append(word);
+                }
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package taskautomation;
+
+import java.util.*;
+
+// Lookup latency of CommandIndex against command-set size:
+//   java taskautomation.CommandIndexBenchmark [sizes...]   (default 100 1000 10000 50000)
+public class CommandIndexBenchmark {
+    private static final String[] VERBS = {"open", "launch", "start", "show", "run", "close", "search", "play"};
+    private static final String[] NOUNS = {"notepad", "chrome", "explorer", "outlook", "calculator", "terminal",
+        "report", "music", "settings", "calendar", "downloads", "editor", "mail", "photos", "spotify", "teams"};
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{100, 1000, 10000, 50000} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.printf("%8s %10s %10s %10s %10s %10s%n", "commands", "build ms", "p50 us", "p99 us", "max us", "hit rate");
+        for (int size : sizes) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) {
+        Random rand = new Random(42);
+        List<String> phrases = new ArrayList<>(size);
+        CommandIndex<Integer> index = new CommandIndex<>();
+        for (int i = 0; i < size; i++) {
+            String phrase = phrase(i);
+            phrases.add(phrase);
+            index.add(phrase, i);
+        }
+        long buildStart = System.nanoTime();
+        index.build();
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        int queries = 20000;
+        String[] inputs = new String[queries];
+        int[] expected = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            expected[q] = rand.nextInt(size);
+            inputs[q] = mangle(phrases.get(expected[q]), rand);
+        }
+        // Warm up, then measure
+        for (int q = 0; q < queries; q++) {
+            index.search(inputs[q], 5);
+        }
+        long[] latencies = new long[queries];
+        int hits = 0;
+        for (int q = 0; q < queries; q++) {
+            long start = System.nanoTime();
+            List<CommandIndex.Match<Integer>> matches = index.search(inputs[q], 5);
+            latencies[q] = System.nanoTime() - start;
+            if (!matches.isEmpty() && matches.get(0).target == expected[q]) {
+                hits++;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%8d %10.1f %10.1f %10.1f %10.1f %9.1f%%%n", size, buildMs,
+            latencies[queries / 2] / 1e3, latencies[queries * 99 / 100] / 1e3, latencies[queries - 1] / 1e3, 100.0 * hits / queries);
+    }
+
+    // Synthetic command set; the JMH lookup benchmark builds the same one
+    static String phrase(int i) {
+        return VERBS[i % VERBS.length] + " " + NOUNS[(i / VERBS.length) % NOUNS.length] + (i < VERBS.length * NOUNS.length ? "" : " " + i);
+    }
+
+    // Simulated recognition noise: filler words, split words and single-character typos
+    static String mangle(String phrase, Random rand) {
+        StringBuilder sb = new StringBuilder();
+        if (rand.nextInt(4) == 0) sb.append("please ");
+        sb.append(phrase);
+        if (rand.nextInt(3) == 0) {
+            int pos = 1 + rand.nextInt(sb.length() - 1);
+            switch (rand.nextInt(3)) {
+                case 0: sb.deleteCharAt(pos); break;
+                case 1: sb.insert(pos, (char) ('a' + rand.nextInt(26))); break;
+                default: sb.setCharAt(pos, (char) ('a' + rand.nextInt(26))); break;
+            }
+        }
+        if (rand.nextInt(5) == 0) {
+            int space = sb.indexOf("note");
+            if (space > 0) sb.insert(space + 4, ' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package taskautomation;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for ControlServer. Each connection pipelines up to --window requests, sending the
+// next as soon as an earlier one has finished, and the run reports throughput along with the
+// time to "accepted" and to the final result.
+//
+//   java taskautomation.ControlClient [--port 7878] [--connections 4] [--requests 1000] [--window 16]
+//                                     [--voice] [--json] <task name | voice command>
+//
+// Point it at `ControlServer --simulate` to load-test the server and engine without running apps.
+public class ControlClient {
+    public static void main(String[] args) throws Exception {
+        int port = 7878;
+        int connections = 4;
+        int requests = 1000;
+        int window = 16;
+        boolean voice = false;
+        boolean json = false;
+        String target = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port": port = Integer.parseInt(args[++i]); break;
+                    case "--connections": connections = Integer.parseInt(args[++i]); break;
+                    case "--requests": requests = Integer.parseInt(args[++i]); break;
+                    case "--window": window = Integer.parseInt(args[++i]); break;
+                    case "--voice": voice = true; break;
+                    case "--json": json = true; break;
+                    default:
+                        target = target == null ? args[i] : target + " " + args[i];
+                        break;
+                }
+            }
+            if (target == null || connections < 1 || requests < 1 || window < 1) {
+                throw new IllegalArgumentException("missing task name");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("client: " + e.getMessage());
+            System.err.println("usage: java taskautomation.ControlClient [--port 7878] [--connections 4] [--requests 1000] [--window 16] [--voice] [--json] <task | command>");
+            System.exit(2);
+            return;
+        }
+
+        LatencyHistogram toAccepted = new LatencyHistogram();
+        LatencyHistogram toResult = new LatencyHistogram();
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        Thread[] threads = new Thread[connections];
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            Load load = new Load(port, c, requests, window, voice ? "voice" : "task", target, json, toAccepted, toResult, statuses);
+            threads[c] = new Thread(load::run, "load-" + c);
+            threads[c].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) connections * requests;
+        System.out.printf("%d request(s) over %d connection(s), window %d: %.2f s, %.0f req/s%n", total, connections, window, seconds, total / seconds);
+        System.out.println("results: " + statuses);
+        System.out.printf("accepted after: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+            toAccepted.percentile(0.50) / 1e6, toAccepted.percentile(0.99) / 1e6, toAccepted.max() / 1e6);
+        System.out.printf("result after:   p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+            toResult.percentile(0.50) / 1e6, toResult.percentile(0.99) / 1e6, toResult.max() / 1e6);
+    }
+
+    private static final class Load {
+        private final int port;
+        private final int connection;
+        private final int requests;
+        private final Semaphore window;
+        private final String kind;
+        private final String target;
+        private final boolean json;
+        private final LatencyHistogram toAccepted;
+        private final LatencyHistogram toResult;
+        private final Map<String, LongAdder> statuses;
+        private final long[] sent;
+
+        Load(int port, int connection, int requests, int window, String kind, String target, boolean json,
+             LatencyHistogram toAccepted, LatencyHistogram toResult, Map<String, LongAdder> statuses) {
+            this.port = port;
+            this.connection = connection;
+            this.requests = requests;
+            this.window = new Semaphore(window);
+            this.kind = kind;
+            this.target = target;
+            this.json = json;
+            this.toAccepted = toAccepted;
+            this.toResult = toResult;
+            this.statuses = statuses;
+            this.sent = new long[requests + 1];
+        }
+
+        void run() {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setTcpNoDelay(true);
+                Thread writer = new Thread(() -> send(socket), "load-writer-" + connection);
+                writer.start();
+                receive(socket);
+                writer.join();
+            } catch (IOException | InterruptedException e) {
+                System.err.println("connection " + connection + ": " + e);
+            }
+        }
+
+        private void send(Socket socket) {
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                for (int i = 1; i <= requests; i++) {
+                    // Flush before blocking, so everything inside the window is actually on the wire
+                    if (!window.tryAcquire()) {
+                        out.flush();
+                        window.acquire();
+                    }
+                    synchronized (sent) {
+                        sent[i] = System.nanoTime();
+                    }
+                    out.write(json
+                        ? "{\"id\":\"" + connection + "-" + i + "\",\"" + kind + "\":" + JournalTool.quote(target) + "}\n"
+                        : kind + " " + target + "\n");
+                }
+                out.flush();
+            } catch (IOException | InterruptedException e) {
+                System.err.println("connection " + connection + " writer: " + e);
+            }
+        }
+
+        private void receive(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            int done = 0;
+            String line;
+            while (done < requests && (line = in.readLine()) != null) {
+                String id;
+                String status;
+                if (json) {
+                    Map<String, String> fields = ControlServer.parseObject(line);
+                    id = fields.get("id");
+                    status = fields.get("status");
+                } else {
+                    String[] parts = line.split(" ", 3);
+                    id = parts[0];
+                    status = parts.length > 1 ? parts[1] : "";
+                }
+                int n = Integer.parseInt(json ? id.substring(id.indexOf('-') + 1) : id);
+                long sentAt;
+                synchronized (sent) {
+                    sentAt = sent[n];
+                }
+                long latency = System.nanoTime() - sentAt;
+                if (status.equals("accepted")) {
+                    toAccepted.record(latency);
+                    continue;
+                }
+                toResult.record(latency);
+                statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                window.release();
+                done++;
+            }
+        }
+    }
+}
@@ -0,0 +1,660 @@
+package taskautomation;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Local control endpoint: a single selector thread serving non-blocking sockets on the loopback
+// interface, or on a Unix domain socket (see SingleInstance). Each request is one line, either plain text or a flat JSON object:
+//
+//   task Open Browser                        {"id": "a1", "task": "Open Browser"}
+//   voice open chrome                        {"id": "a2", "voice": "open chrome"}
+//   ping | stats | quit                      {"id": "a3", "op": "ping"}
+//
+// Requests can be pipelined. Each gets an "accepted" (or "rejected") reply at once and its result
+// when the task finishes, tagged with the request's id (the JSON "id", else the request's position
+// on the connection, from 1). Results stream back in completion order, not request order:
+//
+//   3 accepted                               {"id":"a1","status":"accepted"}
+//   3 completed 412.0 ms                     {"id":"a1","status":"completed","ms":412.0}
+//   4 failed 3.1 ms <message>                {"id":"a2","status":"failed","ms":3.1,"error":"..."}
+//
+// Admission is bounded: each request is charged against an Admission budget (a task costs 1, a
+// workflow its step count) and once the budget is spent the server stops reading from connections
+// until something finishes, so excess requests wait in the client's socket buffers rather than in
+// memory here. Servers sharing one engine share one budget. A connection whose unread replies pile
+// up is paused the same way.
+// The dispatcher is called on the selector thread and must not block; TaskEngine.submit doesn't.
+public class ControlServer {
+    public interface Dispatcher {
+        // Starts a "task" or "voice" request; IllegalArgumentException if it names nothing runnable
+        CompletableFuture<Outcome> dispatch(String kind, String argument);
+
+        // Engine queue slots the request may hold at once; anything unrunnable costs 1 and is rejected by dispatch
+        default int weight(String kind, String argument) {
+            return 1;
+        }
+    }
+
+    // A budget of engine queue slots, shared by every server that feeds the same engine. Kept at or
+    // below the queue's capacity, requests admitted against it never find the queue full.
+    public static final class Admission {
+        private final int limit;
+        private final AtomicInteger used = new AtomicInteger();
+        private final List<Selector> waiting = new CopyOnWriteArrayList<>();
+
+        public Admission(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getUsed() {
+            return used.get();
+        }
+
+        boolean tryAcquire(int slots) {
+            while (true) {
+                int current = used.get();
+                if (current + slots > limit) {
+                    return false;
+                }
+                if (used.compareAndSet(current, current + slots)) {
+                    return true;
+                }
+            }
+        }
+
+        // Any server may have connections stalled on the slots another one frees
+        void release(int slots) {
+            used.addAndGet(-slots);
+            for (Selector s : waiting) {
+                s.wakeup();
+            }
+        }
+    }
+
+    public static final class Outcome {
+        public final String status;
+        public final String error;
+        public final long nanos;
+
+        public Outcome(String status, String error, long nanos) {
+            this.status = status;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        static Outcome of(TaskEngine.TaskHandle handle) {
+            Throwable error = handle.getError();
+            return new Outcome(handle.getState().name().toLowerCase(), error == null ? null : String.valueOf(error.getMessage()),
+                handle.getFinishedNanos() - handle.getSubmittedNanos());
+        }
+    }
+
+    private static final int MAX_LINE = 4096;
+    private static final int MAX_UNSENT = 64 * 1024;
+
+    private final Dispatcher dispatcher;
+    private final Admission admission;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Reply> finished = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Connection> stalled = new ArrayDeque<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private volatile int inFlight;
+    private volatile int connections;
+    private volatile boolean running = true;
+
+    public ControlServer(int port, int maxInFlight, Dispatcher dispatcher) throws IOException {
+        this(port, new Admission(maxInFlight), dispatcher);
+    }
+
+    public ControlServer(int port, Admission admission, Dispatcher dispatcher) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), admission, dispatcher);
+    }
+
+    public ControlServer(SocketAddress address, Admission admission, Dispatcher dispatcher) throws IOException {
+        this.dispatcher = dispatcher;
+        this.admission = admission;
+        selector = Selector.open();
+        server = address instanceof UnixDomainSocketAddress
+            ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+            : ServerSocketChannel.open();
+        server.bind(address, 128);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        admission.waiting.add(selector);
+        thread = new Thread(this::run, "control-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // -1 on a Unix domain socket
+    public int getPort() {
+        try {
+            SocketAddress local = server.getLocalAddress();
+            return local instanceof InetSocketAddress ? ((InetSocketAddress) local).getPort() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public String getStats() {
+        return String.format("%d connection(s), %d in flight, %d/%d slot(s) shared; %d accepted, %d completed, %d failed, %d rejected, %d stall(s)",
+            connections, inFlight, admission.getUsed(), admission.getLimit(), accepted.sum(), completed.sum(), failed.sum(), rejected.sum(), stalls.sum());
+    }
+
+    public void close() {
+        running = false;
+        admission.waiting.remove(selector);
+        selector.wakeup();
+    }
+
+    // Runs a task on the engine and completes with its outcome
+    public static CompletableFuture<Outcome> submit(TaskEngine engine, String name, TaskEngine.TaskBody body) {
+        CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+        engine.submit(name, body, handle -> outcome.complete(Outcome.of(handle)));
+        return outcome;
+    }
+
+    public static CompletableFuture<Outcome> start(Workflow workflow, TaskEngine engine, MacroContext ctx,
+                                                   Function<MacroPlan, TextInjector.Strategy> typing) {
+        return workflow.start(engine, ctx, typing).completion().thenApply(run -> run.succeeded()
+            ? new Outcome("completed", null, run.getElapsedNanos())
+            : new Outcome("failed", run.describeFailures(), run.getElapsedNanos()));
+    }
+
+    // Resolves tasks by macro or workflow name and voice commands against their names and aliases
+    public static Dispatcher forLibrary(MacroLibrary library, TaskEngine engine, MacroContext ctx) {
+        CommandIndex<String> voice = new CommandIndex<>();
+        for (MacroPlan plan : library.all()) {
+            voice.add(plan.getName(), plan.getName());
+            for (String alias : plan.getVoiceAliases()) voice.add(alias, plan.getName());
+        }
+        for (Workflow workflow : library.allWorkflows()) {
+            voice.add(workflow.getName(), workflow.getName());
+            for (String alias : workflow.getVoiceAliases()) voice.add(alias, workflow.getName());
+        }
+        voice.build();
+        BiFunction<String, String, String> resolve = (kind, argument) -> {
+            if (!kind.equals("voice")) return argument;
+            CommandIndex.Match<String> match = voice.best(argument.toLowerCase(), 0.75);
+            if (match == null) throw new IllegalArgumentException("unknown command '" + argument + "'");
+            return match.target;
+        };
+        return new Dispatcher() {
+            @Override
+            public CompletableFuture<Outcome> dispatch(String kind, String argument) {
+                String name = resolve.apply(kind, argument);
+                Workflow workflow = library.getWorkflow(name);
+                if (workflow != null) {
+                    return start(workflow, engine, ctx, MacroPlan::getTyping);
+                }
+                MacroPlan plan = library.get(name);
+                if (plan == null) throw new IllegalArgumentException("unknown task '" + name + "'");
+                return submit(engine, plan.getName(), () -> plan.run(ctx, plan.getTyping()));
+            }
+
+            @Override
+            public int weight(String kind, String argument) {
+                Workflow workflow = library.getWorkflow(resolve.apply(kind, argument));
+                return workflow == null ? 1 : workflow.getStepCount();
+            }
+        };
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(8192);
+        long requests;
+        int outstanding;
+        boolean inputDone;
+        boolean stalled;
+        boolean closed;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+    }
+
+    private static final class Reply {
+        final Connection connection;
+        final String text;
+        final int slots;
+
+        Reply(Connection connection, String text, int slots) {
+            this.connection = connection;
+            this.text = text;
+            this.slots = slots;
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                drainFinished();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            flush(c);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(c);
+                        }
+                    } catch (IOException e) {
+                        close(c);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("[control] server stopped: " + e);
+        } finally {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            new Connection(channel);
+            connections++;
+        }
+    }
+
+    private void read(Connection c) throws IOException {
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            c.inputDone = true;
+        }
+        process(c);
+    }
+
+    // Handles every complete line in the input buffer, unless admission or output is full
+    private void process(Connection c) {
+        c.in.flip();
+        boolean partial = false;
+        while (!c.closed && c.in.hasRemaining()) {
+            if (admission.getUsed() >= admission.getLimit()) {
+                stall(c);
+                break;
+            }
+            if (c.out.position() >= MAX_UNSENT) {
+                break;
+            }
+            int end = -1;
+            for (int i = c.in.position(); i < c.in.limit(); i++) {
+                if (c.in.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                partial = true;
+                break;
+            }
+            int start = c.in.position();
+            byte[] bytes = new byte[end - start];
+            c.in.get(bytes);
+            c.in.get();
+            if (!handle(c, new String(bytes, StandardCharsets.UTF_8).trim())) {
+                // Too heavy for the slots left; read it again once some are freed
+                c.in.position(start);
+                stall(c);
+                break;
+            }
+        }
+        c.in.compact();
+        if (partial && !c.in.hasRemaining()) {
+            reply(c, "0", false, "error", "line longer than " + MAX_LINE + " bytes", -1);
+            c.inputDone = true;
+            c.in.clear();
+        }
+        updateInterest(c);
+    }
+
+    private void stall(Connection c) {
+        if (!c.stalled) {
+            c.stalled = true;
+            stalled.add(c);
+            stalls.increment();
+        }
+    }
+
+    // False if the request was left unread for want of admission slots
+    private boolean handle(Connection c, String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String id = String.valueOf(++c.requests);
+        boolean json = line.startsWith("{");
+        String kind;
+        String argument;
+        if (json) {
+            Map<String, String> fields;
+            try {
+                fields = parseObject(line);
+            } catch (IllegalArgumentException e) {
+                rejected.increment();
+                reply(c, id, true, "rejected", "bad JSON: " + e.getMessage(), -1);
+                return true;
+            }
+            id = fields.getOrDefault("id", id);
+            kind = fields.containsKey("task") ? "task" : fields.containsKey("voice") ? "voice" : fields.getOrDefault("op", "");
+            argument = fields.getOrDefault(kind, "");
+        } else {
+            int space = line.indexOf(' ');
+            kind = space < 0 ? line : line.substring(0, space);
+            argument = space < 0 ? "" : line.substring(space + 1).trim();
+        }
+        switch (kind) {
+            case "ping":
+                reply(c, id, json, "pong", null, -1);
+                return true;
+            case "stats":
+                reply(c, id, json, "stats", getStats(), -1);
+                return true;
+            case "quit":
+                c.inputDone = true;
+                c.in.position(c.in.limit());
+                return true;
+            case "task":
+            case "voice":
+                break;
+            default:
+                rejected.increment();
+                reply(c, id, json, "rejected", "unknown request '" + kind + "'", -1);
+                return true;
+        }
+        int slots;
+        try {
+            slots = argument.isEmpty() ? 1 : Math.max(1, Math.min(dispatcher.weight(kind, argument), admission.getLimit()));
+        } catch (RuntimeException e) {
+            slots = 1;
+        }
+        if (!admission.tryAcquire(slots)) {
+            c.requests--;
+            return false;
+        }
+        CompletableFuture<Outcome> outcome;
+        try {
+            if (argument.isEmpty()) throw new IllegalArgumentException(kind + " needs an argument");
+            outcome = dispatcher.dispatch(kind, argument);
+        } catch (RuntimeException e) {
+            admission.release(slots);
+            rejected.increment();
+            reply(c, id, json, "rejected", e.getMessage(), -1);
+            return true;
+        }
+        inFlight++;
+        c.outstanding++;
+        accepted.increment();
+        reply(c, id, json, "accepted", null, -1);
+        String replyId = id;
+        int charged = slots;
+        outcome.whenComplete((result, error) -> {
+            Outcome o = error != null ? new Outcome("failed", String.valueOf(error), 0) : result;
+            (o.status.equals("completed") ? completed : failed).increment();
+            finished.add(new Reply(c, format(replyId, json, o.status, o.error, o.nanos), charged));
+            selector.wakeup();
+        });
+        return true;
+    }
+
+    // On the selector thread: deliver results, then let stalled connections continue
+    private void drainFinished() {
+        Reply r;
+        while ((r = finished.poll()) != null) {
+            inFlight--;
+            admission.release(r.slots);
+            Connection c = r.connection;
+            c.outstanding--;
+            if (!c.closed) {
+                append(c, r.text);
+                updateInterest(c);
+            }
+        }
+        // One pass: a connection whose next request still doesn't fit goes to the back again
+        for (int n = stalled.size(); n > 0 && admission.getUsed() < admission.getLimit(); n--) {
+            Connection c = stalled.poll();
+            c.stalled = false;
+            if (!c.closed) {
+                process(c);
+            }
+        }
+    }
+
+    private void reply(Connection c, String id, boolean json, String status, String detail, long nanos) {
+        append(c, format(id, json, status, detail, nanos));
+    }
+
+    private static String format(String id, boolean json, String status, String detail, long nanos) {
+        if (json) {
+            StringBuilder sb = new StringBuilder("{\"id\":").append(JournalTool.quote(id)).append(",\"status\":\"").append(status).append('"');
+            if (nanos >= 0) sb.append(",\"ms\":").append(String.format(Locale.ROOT, "%.1f", nanos / 1e6));
+            if (detail != null) sb.append(status.equals("stats") ? ",\"stats\":" : ",\"error\":").append(JournalTool.quote(detail));
+            return sb.append("}\n").toString();
+        }
+        StringBuilder sb = new StringBuilder(id).append(' ').append(status);
+        if (nanos >= 0) sb.append(String.format(Locale.ROOT, " %.1f ms", nanos / 1e6));
+        if (detail != null) sb.append(' ').append(detail.replace('\n', ' '));
+        return sb.append('\n').toString();
+    }
+
+    private void append(Connection c, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (c.out.remaining() < bytes.length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(c.out.capacity() * 2, c.out.position() + bytes.length));
+            c.out.flip();
+            bigger.put(c.out);
+            c.out = bigger;
+        }
+        c.out.put(bytes);
+    }
+
+    private void flush(Connection c) throws IOException {
+        c.out.flip();
+        c.channel.write(c.out);
+        c.out.compact();
+        // Output drained below the limit: pick up any lines that were left waiting for it
+        if (c.out.position() < MAX_UNSENT && !c.stalled && c.in.position() > 0) {
+            process(c);
+        } else {
+            updateInterest(c);
+        }
+    }
+
+    private void updateInterest(Connection c) {
+        if (c.closed) {
+            return;
+        }
+        if (c.inputDone && c.outstanding == 0 && c.out.position() == 0) {
+            close(c);
+            return;
+        }
+        int ops = 0;
+        if (!c.inputDone && !c.stalled && c.out.position() < MAX_UNSENT && c.in.hasRemaining()) ops |= SelectionKey.OP_READ;
+        if (c.out.position() > 0) ops |= SelectionKey.OP_WRITE;
+        c.key.interestOps(ops);
+    }
+
+    private void close(Connection c) {
+        if (c.closed) {
+            return;
+        }
+        c.closed = true;
+        connections--;
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    // Flat JSON object with string, number, boolean or null values
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skip(json, 0)};
+        expect(json, pos, '{');
+        if (peek(json, pos) == '}') {
+            pos[0]++;
+            return fields;
+        }
+        while (true) {
+            String key = string(json, pos);
+            expect(json, pos, ':');
+            String value;
+            if (peek(json, pos) == '"') {
+                value = string(json, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < json.length() && ",} \t".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+                value = json.substring(start, pos[0]);
+                if (value.isEmpty() || value.equals("{") || value.equals("[")) throw new IllegalArgumentException("unsupported value for '" + key + "'");
+                if (value.equals("null")) value = null;
+            }
+            if (value != null) fields.put(key, value);
+            char next = peek(json, pos);
+            pos[0]++;
+            if (next == '}') break;
+            if (next != ',') throw new IllegalArgumentException("expected ',' or '}' at " + (pos[0] - 1));
+        }
+        if (skip(json, pos[0]) != json.length()) throw new IllegalArgumentException("trailing characters");
+        return fields;
+    }
+
+    private static String string(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char ch = json.charAt(pos[0]++);
+            if (ch == '"') return sb.toString();
+            if (ch != '\\') {
+                sb.append(ch);
+                continue;
+            }
+            if (pos[0] >= json.length()) break;
+            char esc = json.charAt(pos[0]++);
+            switch (esc) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos[0] + 4 > json.length()) throw new IllegalArgumentException("bad \\u escape");
+                    sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                    break;
+                default: sb.append(esc);
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    private static void expect(String json, int[] pos, char ch) {
+        if (peek(json, pos) != ch) throw new IllegalArgumentException("expected '" + ch + "' at " + pos[0]);
+        pos[0]++;
+    }
+
+    private static char peek(String json, int[] pos) {
+        pos[0] = skip(json, pos[0]);
+        return pos[0] < json.length() ? json.charAt(pos[0]) : 0;
+    }
+
+    private static int skip(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+
+    // Standalone server over the macro library, no GUI:
+    //   java taskautomation.ControlServer [--port 7878] [--parallel N] [--max-inflight N] [--macros DIR] [--simulate]
+    // --simulate runs tasks on a SimulatedContext, for load-testing the server and engine anywhere.
+    public static void main(String[] args) throws Exception {
+        int port = 7878;
+        int parallel = 4;
+        int maxInFlight = 64;
+        String macroDir = null;
+        boolean simulate = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port": port = Integer.parseInt(args[++i]); break;
+                    case "--parallel": parallel = Integer.parseInt(args[++i]); break;
+                    case "--max-inflight": maxInFlight = Integer.parseInt(args[++i]); break;
+                    case "--macros": macroDir = args[++i]; break;
+                    case "--simulate": simulate = true; break;
+                    default: throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("control: " + e.getMessage());
+            System.err.println("usage: java taskautomation.ControlServer [--port 7878] [--parallel N] [--max-inflight N] [--macros DIR] [--simulate]");
+            System.exit(2);
+        }
+        MacroLibrary library = macroDir == null ? new MacroLibrary() : new MacroLibrary(Paths.get(macroDir));
+        for (String error : library.getErrors()) {
+            System.err.println("[macros] " + error);
+        }
+        MacroContext ctx = simulate ? new SimulatedContext(0) : new AutomationContext(new ProcessLauncher());
+        // Requests are charged by the queue slots they can hold, so with the budget no larger than the
+        // queue a task is never turned away for a full one; workflows also hold back steps that don't fit
+        TaskEngine engine = new TaskEngine(parallel, maxInFlight);
+        ControlServer server = new ControlServer(port, maxInFlight, forLibrary(library, engine, ctx));
+        System.out.println("[control] listening on 127.0.0.1:" + server.getPort() + (simulate ? " (simulated)" : ""));
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println("[control] " + server.getStats());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package taskautomation;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+
+// Standard five-field cron expression: minute hour day-of-month month day-of-week.
+// Fields take *, numbers, ranges (1-5), steps (*/15, 8-18/2), lists (1,15) and month / weekday
+// names (jan, mon). Sunday is 0 or 7. If both day fields are restricted a day matching either one
+// fires, as in Vixie cron. @hourly, @daily, @weekly, @monthly and @yearly are accepted.
+public final class CronExpression {
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+    private static final String[] DAYS = {"sun", "mon", "tue", "wed", "thu", "fri", "sat"};
+
+    private final String text;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean domRestricted;
+    private final boolean dowRestricted;
+
+    private CronExpression(String text, String[] fields) {
+        this.text = text;
+        minutes = parseField(fields[0], 0, 59, null);
+        hours = parseField(fields[1], 0, 23, null);
+        daysOfMonth = parseField(fields[2], 1, 31, null);
+        months = parseField(fields[3], 1, 12, MONTHS);
+        long dow = parseField(fields[4], 0, 7, DAYS);
+        // Fold 7 onto Sunday
+        daysOfWeek = (dow & (1L << 7)) != 0 ? (dow | 1L) & ~(1L << 7) : dow;
+        domRestricted = !fields[2].equals("*");
+        dowRestricted = !fields[4].equals("*");
+    }
+
+    public static CronExpression parse(String expression) {
+        String text = expression.trim();
+        switch (text.toLowerCase()) {
+            case "@hourly": return new CronExpression(text, "0 * * * *".split(" "));
+            case "@daily":
+            case "@midnight": return new CronExpression(text, "0 0 * * *".split(" "));
+            case "@weekly": return new CronExpression(text, "0 0 * * 0".split(" "));
+            case "@monthly": return new CronExpression(text, "0 0 1 * *".split(" "));
+            case "@yearly":
+            case "@annually": return new CronExpression(text, "0 0 1 1 *".split(" "));
+            default: break;
+        }
+        String[] fields = text.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("cron needs 5 fields (minute hour day month weekday): '" + expression + "'");
+        }
+        return new CronExpression(text, fields);
+    }
+
+    // First matching minute strictly after the given time, or null if none within eight years
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime t = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ZonedDateTime limit = t.plusYears(8);
+        while (t.isBefore(limit)) {
+            if ((months & (1L << t.getMonthValue())) == 0) {
+                t = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!dayMatches(t)) {
+                t = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if ((hours & (1L << t.getHour())) == 0) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if ((minutes & (1L << t.getMinute())) == 0) {
+                t = t.plusMinutes(1);
+                continue;
+            }
+            return t;
+        }
+        return null;
+    }
+
+    public long nextMillis(long afterMillis, ZoneId zone) {
+        ZonedDateTime next = next(Instant.ofEpochMilli(afterMillis).atZone(zone));
+        return next == null ? Long.MAX_VALUE : next.toInstant().toEpochMilli();
+    }
+
+    private boolean dayMatches(ZonedDateTime t) {
+        boolean dom = (daysOfMonth & (1L << t.getDayOfMonth())) != 0;
+        boolean dow = (daysOfWeek & (1L << (t.getDayOfWeek().getValue() % 7))) != 0;
+        if (domRestricted && dowRestricted) {
+            return dom || dow;
+        }
+        return dom && dow;
+    }
+
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.toLowerCase().split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                if (step <= 0) throw new IllegalArgumentException("bad step in '" + field + "'");
+                part = part.substring(0, slash);
+            }
+            int lo, hi;
+            if (part.equals("*")) {
+                lo = min;
+                hi = max;
+            } else {
+                int dash = part.indexOf('-');
+                lo = value(dash < 0 ? part : part.substring(0, dash), names, min);
+                hi = dash < 0 ? (slash >= 0 ? max : lo) : value(part.substring(dash + 1), names, min);
+            }
+            if (lo < min || hi > max || lo > hi) {
+                throw new IllegalArgumentException("'" + field + "' is outside " + min + "-" + max);
+            }
+            for (int v = lo; v <= hi; v += step) {
+                bits |= 1L << v;
+            }
+        }
+        return bits;
+    }
+
+    private static int value(String token, String[] names, int min) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(token)) {
+                    return i + (min == 1 ? 1 : 0);
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad cron value '" + token + "'");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,629 @@
+package taskautomation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// Append-only journal of task runs, kept in memory-mapped segment files (journal/<base seq>.seg).
+//
+// A segment is a 16-byte header (magic, version, base sequence) followed by records:
+//   [int payload length][int CRC32 of payload][payload]
+// The payload is: varint seq - base, long start (epoch ms), varint duration ms, varint task id,
+// byte outcome, task name, error (absent/present flag + text), varint step count, and per step a
+// label and varint nanos. Strings are varint length + UTF-8. The length is written last and the
+// file is zero-filled, so a zero length ends a segment and a write torn by a crash fails its CRC;
+// on open the journal truncates back to the last whole record.
+//
+// Task threads only enqueue a record. One writer thread encodes and appends, and forces pages to
+// disk at most once a second. Time-range and per-task queries use an in-memory index that is
+// rebuilt from the segments when the journal is opened.
+public class ExecutionJournal implements TaskEngine.Listener, Closeable {
+    private static final int MAGIC = 0x54414A31; // "TAJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int MAX_ERROR_CHARS = 1000;
+    private static final int MAX_STEPS = 1000;
+    private static final long FORCE_INTERVAL_MS = 1000;
+    private static final String LOCK_FILE = "journal.lock";
+
+    public static final class Entry {
+        public final long seq;
+        public final int taskId;
+        public final String task;
+        public final long startMillis;
+        public final long endMillis;
+        public final TaskEngine.State outcome;
+        public final String error;
+        public final List<TaskEngine.Step> steps;
+
+        Entry(long seq, int taskId, String task, long startMillis, long endMillis, TaskEngine.State outcome, String error,
+              List<TaskEngine.Step> steps) {
+            this.seq = seq;
+            this.taskId = taskId;
+            this.task = task;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.outcome = outcome;
+            this.error = error;
+            this.steps = steps;
+        }
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final boolean readOnly;
+    // Held by the one process that appends; released on close
+    private final FileChannel lockChannel;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, SeqList> byTask = new HashMap<>();
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(4096);
+    private final AtomicLong dropped = new AtomicLong();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private long nextSeq = 1;
+    private Thread writer;
+    private volatile boolean closed;
+
+    public ExecutionJournal(Path dir, int segmentBytes, int maxSegments, boolean readOnly) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = Math.max(1 << 20, segmentBytes);
+        this.maxSegments = Math.max(2, maxSegments);
+        if (!readOnly) {
+            Files.createDirectories(dir);
+        }
+        this.lockChannel = readOnly ? null : lock(dir);
+        if (!readOnly && lockChannel == null) {
+            System.err.println("[journal] " + dir + " is in use by another process; opening it read-only, runs here are not recorded");
+        }
+        this.readOnly = readOnly || lockChannel == null;
+        load();
+        if (!this.readOnly) {
+            writer = new Thread(this::writeLoop, "journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    // -Dtaskautomation.journal=<dir> (default "journal", "off" disables); returns null when disabled or unusable
+    public static ExecutionJournal fromProperties() {
+        String location = System.getProperty("taskautomation.journal", "journal");
+        if (location.equalsIgnoreCase("off")) {
+            return null;
+        }
+        try {
+            return new ExecutionJournal(Paths.get(location), Integer.getInteger("taskautomation.journal.segmentMb", 4) << 20,
+                Integer.getInteger("taskautomation.journal.segments", 32), false);
+        } catch (IOException e) {
+            System.err.println("[journal] disabled: " + e);
+            return null;
+        }
+    }
+
+    // Two writers would map the same active segment and overwrite each other's records, so appending
+    // takes an exclusive lock on journal.lock; null if another process (or journal) holds it
+    private static FileChannel lock(Path dir) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this JVM
+        }
+        channel.close();
+        return null;
+    }
+
+    public static ExecutionJournal openReadOnly(Path dir) throws IOException {
+        return new ExecutionJournal(dir, 0, Integer.MAX_VALUE, true);
+    }
+
+    @Override
+    public void onStateChanged(TaskEngine.TaskHandle handle) {
+        if (!handle.isDone()) {
+            return;
+        }
+        // Handle stamps are nanoTime; anchor them to the wall clock once
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        long finished = handle.getFinishedNanos();
+        long started = handle.getStartedNanos() != 0 ? handle.getStartedNanos() : finished;
+        long endMillis = nowMillis - (nowNanos - finished) / 1_000_000;
+        long startMillis = endMillis - (finished - started) / 1_000_000;
+        Throwable error = handle.getError();
+        String message = error == null ? null : error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        append(new Entry(0, handle.getId(), handle.getName(), startMillis, endMillis, handle.getState(), message, handle.getSteps()));
+    }
+
+    // Never blocks; if the writer has fallen 4096 records behind the record is dropped and counted
+    public void append(Entry entry) {
+        if (readOnly || closed || !queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Waits until everything appended so far is written and forced to disk
+    public void flush() throws InterruptedException {
+        if (readOnly || closed) {
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        queue.put(done);
+        done.await();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (writer != null) {
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+            writer.interrupt();
+            try {
+                writer.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closed = true;
+        if (lockChannel != null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                // The lock goes with the process anyway
+            }
+        }
+    }
+
+    // Runs started in [fromMillis, toMillis) in journal (completion) order; task == null matches every task
+    public synchronized List<Entry> query(long fromMillis, long toMillis, String task) {
+        List<Entry> result = new ArrayList<>();
+        if (segments.isEmpty()) {
+            return result;
+        }
+        if (task != null) {
+            SeqList seqs = byTask.get(task);
+            if (seqs == null) {
+                return result;
+            }
+            long oldest = segments.get(0).baseSeq;
+            for (int i = seqs.firstAtLeast(oldest); i < seqs.size; i++) {
+                Segment segment = segmentOf(seqs.values[i]);
+                int index = (int) (seqs.values[i] - segment.baseSeq);
+                long start = segment.starts[index];
+                if (start >= fromMillis && start < toMillis) {
+                    result.add(decode(segment, segment.offsets[index]));
+                }
+            }
+            return result;
+        }
+        for (Segment segment : segments) {
+            if (segment.count == 0 || segment.maxStart < fromMillis || segment.minStart >= toMillis) {
+                continue;
+            }
+            for (int i = 0; i < segment.count; i++) {
+                long start = segment.starts[i];
+                if (start >= fromMillis && start < toMillis) {
+                    result.add(decode(segment, segment.offsets[i]));
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized Set<String> getTasks() {
+        return new TreeSet<>(byTask.keySet());
+    }
+
+    public synchronized long size() {
+        long n = 0;
+        for (Segment segment : segments) {
+            n += segment.count;
+        }
+        return n;
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        long lastForce = System.currentTimeMillis();
+        boolean dirty = false;
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(FORCE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                if (!closed) {
+                    continue;
+                }
+                queue.drainTo(batch);
+            }
+            for (Object item : batch) {
+                try {
+                    if (item instanceof Entry) {
+                        write((Entry) item);
+                        dirty = true;
+                    } else {
+                        try {
+                            force();
+                            dirty = false;
+                        } finally {
+                            ((CountDownLatch) item).countDown();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("[journal] write failed: " + e);
+                }
+            }
+            batch.clear();
+            long now = System.currentTimeMillis();
+            if (dirty && now - lastForce >= FORCE_INTERVAL_MS) {
+                force();
+                dirty = false;
+                lastForce = now;
+            }
+        }
+        if (dirty) {
+            force();
+        }
+    }
+
+    private synchronized void force() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+    }
+
+    // Encodes and appends one record; called on the writer thread (and directly by benchmarks)
+    synchronized void write(Entry entry) throws IOException {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        long seq = nextSeq;
+        int length = encode(entry, seq, segment == null ? seq : segment.baseSeq);
+        // The newest segment is only mapped for writing if it was the newest file on disk; when a
+        // newer one had to be skipped at load, appending starts a fresh segment
+        if (segment == null || segment.buffer.isReadOnly() || segment.writePos + 8 + length > segment.buffer.capacity()) {
+            segment = roll(seq);
+            length = encode(entry, seq, seq);
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        MappedByteBuffer buffer = segment.buffer;
+        int pos = segment.writePos;
+        buffer.put(pos + 8, scratch.array(), 0, length);
+        buffer.putInt(pos + 4, (int) crc.getValue());
+        buffer.putInt(pos, length);
+        segment.writePos = pos + 8 + length;
+        index(segment, pos, seq, entry.task, entry.startMillis);
+        nextSeq = seq + 1;
+    }
+
+    private Segment roll(long baseSeq) throws IOException {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+        Path path = dir.resolve(String.format("%020d.seg", baseSeq));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, baseSeq);
+        Segment segment = new Segment(path, baseSeq, buffer);
+        segments.add(segment);
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.remove(0);
+            // Windows refuses to delete a file that is still mapped, so the mapping goes first
+            unmap(oldest.buffer);
+            delete(oldest.path);
+            long keptFrom = segments.get(0).baseSeq;
+            for (Iterator<SeqList> it = byTask.values().iterator(); it.hasNext(); ) {
+                SeqList seqs = it.next();
+                seqs.dropBelow(keptFrom);
+                if (seqs.size == 0) {
+                    it.remove();
+                }
+            }
+        }
+        return segment;
+    }
+
+    private static boolean delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[journal] could not delete " + path + ": " + e);
+            return false;
+        }
+    }
+
+    // Releases the mapping now instead of whenever the buffer is collected. Nothing may touch the
+    // buffer afterwards; callers hold the journal lock and have already dropped the segment.
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            java.lang.reflect.Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector; only the delete on Windows suffers
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.seg")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        // Segments past retention that an earlier run could not delete
+        if (!readOnly && files.size() > maxSegments) {
+            List<Path> expired = files.subList(0, files.size() - maxSegments);
+            for (Path file : expired) {
+                delete(file);
+            }
+            expired.clear();
+        }
+        for (int f = 0; f < files.size(); f++) {
+            boolean active = !readOnly && f == files.size() - 1;
+            Path file = files.get(f);
+            MappedByteBuffer buffer;
+            try (FileChannel channel = active
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER) {
+                    skip(file, "too short");
+                    continue;
+                }
+                buffer = channel.map(active ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                unmap(buffer);
+                skip(file, "not a journal segment");
+                continue;
+            }
+            Segment segment = new Segment(file, buffer.getLong(8), buffer);
+            recover(segment, active);
+            segments.add(segment);
+            nextSeq = Math.max(nextSeq, segment.baseSeq + segment.count);
+        }
+    }
+
+    // A writer moves the file aside, so a new segment can never collide with its name
+    private void skip(Path file, String reason) {
+        System.err.println("[journal] skipping " + file + ": " + reason);
+        if (readOnly) {
+            return;
+        }
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[journal] could not move " + file + " aside: " + e);
+        }
+    }
+
+    // Indexes every whole record; in the active segment anything after the last one is zeroed
+    private void recover(Segment segment, boolean active) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int pos = HEADER;
+        while (pos + 8 <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + 8 + length > capacity || !checksumMatches(buffer, pos, length)) {
+                break;
+            }
+            ByteBuffer in = payload(buffer, pos);
+            long seq = segment.baseSeq + readVarLong(in);
+            long start = in.getLong();
+            readVarLong(in);
+            readVarLong(in);
+            in.get();
+            index(segment, pos, seq, readString(in), start);
+            pos += 8 + length;
+        }
+        segment.writePos = pos;
+        if (active && pos + 4 <= capacity && buffer.getInt(pos) != 0) {
+            System.err.println("[journal] " + segment.path.getFileName() + ": discarded torn record at offset " + pos);
+            byte[] zeros = new byte[Math.min(65536, capacity - pos)];
+            for (int p = pos; p < capacity; p += zeros.length) {
+                buffer.put(p, zeros, 0, Math.min(zeros.length, capacity - p));
+            }
+            buffer.force();
+        }
+    }
+
+    private boolean checksumMatches(MappedByteBuffer buffer, int pos, int length) {
+        crc.reset();
+        crc.update(buffer.slice(pos + 8, length));
+        return (int) crc.getValue() == buffer.getInt(pos + 4);
+    }
+
+    private void index(Segment segment, int offset, long seq, String task, long start) {
+        segment.add(offset, start);
+        byTask.computeIfAbsent(task, t -> new SeqList()).add(seq);
+    }
+
+    private Segment segmentOf(long seq) {
+        int lo = 0, hi = segments.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (segments.get(mid).baseSeq <= seq) lo = mid;
+            else hi = mid - 1;
+        }
+        return segments.get(lo);
+    }
+
+    private static ByteBuffer payload(MappedByteBuffer buffer, int pos) {
+        return buffer.slice(pos + 8, buffer.getInt(pos));
+    }
+
+    private Entry decode(Segment segment, int offset) {
+        ByteBuffer in = payload(segment.buffer, offset);
+        long seq = segment.baseSeq + readVarLong(in);
+        long start = in.getLong();
+        long end = start + readVarLong(in);
+        int taskId = (int) readVarLong(in);
+        TaskEngine.State outcome = TaskEngine.State.values()[in.get()];
+        String task = readString(in);
+        String error = in.get() == 0 ? null : readString(in);
+        int stepCount = (int) readVarLong(in);
+        List<TaskEngine.Step> steps = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            String label = readString(in);
+            steps.add(new TaskEngine.Step(label, readVarLong(in)));
+        }
+        return new Entry(seq, taskId, task, start, end, outcome, error, steps);
+    }
+
+    private int encode(Entry entry, long seq, long baseSeq) {
+        scratch.clear();
+        writeVarLong(seq - baseSeq);
+        ensure(8);
+        scratch.putLong(entry.startMillis);
+        writeVarLong(Math.max(0, entry.endMillis - entry.startMillis));
+        writeVarLong(entry.taskId);
+        ensure(1);
+        scratch.put((byte) entry.outcome.ordinal());
+        writeString(entry.task);
+        ensure(1);
+        if (entry.error == null) {
+            scratch.put((byte) 0);
+        } else {
+            scratch.put((byte) 1);
+            writeString(entry.error.length() > MAX_ERROR_CHARS ? entry.error.substring(0, MAX_ERROR_CHARS) : entry.error);
+        }
+        int steps = Math.min(MAX_STEPS, entry.steps.size());
+        writeVarLong(steps);
+        for (int i = 0; i < steps; i++) {
+            TaskEngine.Step step = entry.steps.get(i);
+            writeString(step.label);
+            writeVarLong(Math.max(0, step.nanos));
+        }
+        return scratch.position();
+    }
+
+    private void ensure(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+    }
+
+    private void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            scratch.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        scratch.put((byte) value);
+    }
+
+    private void writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensure(bytes.length);
+        scratch.put(bytes);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long baseSeq;
+        final MappedByteBuffer buffer;
+        int writePos = HEADER;
+        int count;
+        int[] offsets = new int[256];
+        long[] starts = new long[256];
+        long minStart = Long.MAX_VALUE;
+        long maxStart = Long.MIN_VALUE;
+
+        Segment(Path path, long baseSeq, MappedByteBuffer buffer) {
+            this.path = path;
+            this.baseSeq = baseSeq;
+            this.buffer = buffer;
+        }
+
+        void add(int offset, long start) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            offsets[count] = offset;
+            starts[count] = start;
+            count++;
+            minStart = Math.min(minStart, start);
+            maxStart = Math.max(maxStart, start);
+        }
+    }
+
+    // Ascending sequence numbers of one task's records
+    private static final class SeqList {
+        long[] values = new long[16];
+        int size;
+
+        void add(long seq) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = seq;
+        }
+
+        void dropBelow(long seq) {
+            int from = firstAtLeast(seq);
+            System.arraycopy(values, from, values, 0, size - from);
+            size -= from;
+        }
+
+        int firstAtLeast(long seq) {
+            int i = Arrays.binarySearch(values, 0, size, seq);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package taskautomation;
+
+import javax.sound.sampled.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Feedback cues played through one mixing SourceDataLine on a dedicated audio thread.
+//
+// The cues are synthesized once into PCM arrays at construction. play() sets the cue's bit in a
+// pending mask, stamps the trigger time and unparks the audio thread: no locks, no allocation, no
+// I/O, so it is safe from the EDT and task threads. Triggers of the same cue that arrive before the
+// audio thread picks it up are coalesced into one playback; a cue retriggered while it is playing
+// restarts it. The audio thread mixes every active cue into 5 ms chunks and writes them to the
+// line, which is opened with a few chunks of buffer so output follows the trigger closely.
+//
+// Trigger-to-output latency is the time until the cue's first chunk is written, plus the audio
+// already queued in the line ahead of it. Without a usable line (no device, or
+// -Dtaskautomation.sound=beep) the audio thread falls back to Toolkit.beep(); =off disables sound.
+public class FeedbackSound {
+    public enum Cue { MOVE, WIN, ERROR }
+
+    static final float SAMPLE_RATE = 44100f;
+    private static final int CHUNK_FRAMES = 220;
+    private static final int LINE_CHUNKS = 4;
+    private static final long BEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(150);
+
+    // Where mixed audio goes; a SourceDataLine in the app, a paced sink in the latency harness
+    interface Output {
+        void open() throws Exception;
+
+        // Blocks while the output buffer is full
+        void write(byte[] buf, int len);
+
+        // Frames written but not yet played
+        int queuedFrames();
+
+        // Lets what was written finish playing, then releases the device
+        void close();
+    }
+
+    private final short[][] cues = new short[Cue.values().length][];
+    private final int[] positions = new int[Cue.values().length];
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLongArray triggeredAt = new AtomicLongArray(Cue.values().length);
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder triggers = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder played = new LongAdder();
+    private final Output output;
+    private final boolean beepOnly;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean lineFailed;
+    private long lastBeep;
+
+    public FeedbackSound() {
+        this(System.getProperty("taskautomation.sound", "on"));
+    }
+
+    public FeedbackSound(String mode) {
+        this(mode.equals("beep") ? null : new LineOutput(), mode.equals("beep"), !mode.equals("off"));
+    }
+
+    FeedbackSound(Output output, boolean beepOnly, boolean enabled) {
+        this.output = output;
+        this.beepOnly = beepOnly;
+        cues[Cue.MOVE.ordinal()] = sweep(660, 990, 50, 0.30);
+        cues[Cue.WIN.ordinal()] = arpeggio(new double[]{523.25, 659.25, 783.99, 1046.5}, 70, 0.25);
+        cues[Cue.ERROR.ordinal()] = buzz(196, 110, 40, 2, 0.30);
+        for (int c = 0; c < cues.length; c++) {
+            positions[c] = cues[c].length;
+        }
+        if (enabled) {
+            thread = new Thread(this::run, "feedback-sound");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+        } else {
+            thread = null;
+            running = false;
+        }
+    }
+
+    // Never blocks; safe from any thread
+    public void play(Cue cue) {
+        if (!running) {
+            return;
+        }
+        triggers.increment();
+        int bit = 1 << cue.ordinal();
+        triggeredAt.compareAndSet(cue.ordinal(), 0, System.nanoTime());
+        int before = pending.getAndUpdate(p -> p | bit);
+        if ((before & bit) != 0) {
+            coalesced.increment();
+        }
+        // Whoever set the first pending bit already woke the audio thread
+        if (before == 0) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public boolean isBeepOnly() {
+        return beepOnly || lineFailed;
+    }
+
+    public String getReport() {
+        return String.format("%d trigger(s), %d coalesced, %d played; trigger->output p50 %.2f ms, p99 %.2f ms, max %.2f ms%s",
+            triggers.sum(), coalesced.sum(), played.sum(), latency.percentile(0.50) / 1e6, latency.percentile(0.99) / 1e6,
+            latency.max() / 1e6, isBeepOnly() ? " (beep fallback)" : "");
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        if (!beepOnly) {
+            try {
+                output.open();
+            } catch (Exception e) {
+                System.err.println("[sound] no audio line, falling back to beep: " + e);
+                lineFailed = true;
+            }
+        }
+        if (isBeepOnly()) {
+            runBeeps();
+            return;
+        }
+        try {
+            mixLoop();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void mixLoop() {
+        int[] mix = new int[CHUNK_FRAMES];
+        byte[] buf = new byte[CHUNK_FRAMES * 2];
+        while (running) {
+            int started = pending.getAndSet(0);
+            boolean active = false;
+            for (int c = 0; c < cues.length; c++) {
+                if ((started & (1 << c)) != 0) {
+                    positions[c] = 0;
+                }
+                active |= positions[c] < cues[c].length;
+            }
+            if (!active) {
+                LockSupport.park(this);
+                continue;
+            }
+            if (started != 0) {
+                // The new cues go out in this chunk, behind whatever the line already holds
+                long queuedNanos = (long) (output.queuedFrames() * 1e9 / SAMPLE_RATE);
+                long now = System.nanoTime();
+                for (int c = 0; c < cues.length; c++) {
+                    if ((started & (1 << c)) != 0) {
+                        record(c, now, queuedNanos);
+                    }
+                }
+            }
+            mixChunk(mix, buf);
+            output.write(buf, buf.length);
+        }
+    }
+
+    private void runBeeps() {
+        while (running) {
+            int started = pending.getAndSet(0);
+            if (started == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            long now = System.nanoTime();
+            for (int c = 0; c < cues.length; c++) {
+                if ((started & (1 << c)) != 0) {
+                    record(c, now, 0);
+                }
+            }
+            // A beep can't be mixed, so a burst of different cues still makes one sound
+            if (now - lastBeep >= BEEP_INTERVAL_NANOS) {
+                lastBeep = now;
+                Toolkit.getDefaultToolkit().beep();
+            }
+        }
+    }
+
+    // A trigger landing between taking the pending bit and clearing the stamp leaves its bit
+    // without a stamp; that playback is counted but not timed
+    private void record(int cue, long now, long queuedNanos) {
+        long at = triggeredAt.getAndSet(cue, 0);
+        if (at != 0) {
+            latency.record(now - at + queuedNanos);
+        }
+        played.increment();
+    }
+
+    private void mixChunk(int[] mix, byte[] buf) {
+        Arrays.fill(mix, 0);
+        for (int c = 0; c < cues.length; c++) {
+            short[] pcm = cues[c];
+            int pos = positions[c];
+            int n = Math.min(CHUNK_FRAMES, pcm.length - pos);
+            for (int i = 0; i < n; i++) {
+                mix[i] += pcm[pos + i];
+            }
+            positions[c] = pos + Math.max(0, n);
+        }
+        for (int i = 0; i < CHUNK_FRAMES; i++) {
+            int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            buf[2 * i] = (byte) s;
+            buf[2 * i + 1] = (byte) (s >> 8);
+        }
+    }
+
+    private static short[] sweep(double fromHz, double toHz, int ms, double amplitude) {
+        int n = frames(ms);
+        short[] pcm = new short[n];
+        double phase = 0;
+        for (int i = 0; i < n; i++) {
+            double hz = fromHz + (toHz - fromHz) * i / n;
+            phase += 2 * Math.PI * hz / SAMPLE_RATE;
+            pcm[i] = sample(Math.sin(phase) * envelope(i, n), amplitude);
+        }
+        return pcm;
+    }
+
+    // Notes start noteMs apart and ring for twice that, so consecutive notes overlap
+    private static short[] arpeggio(double[] notes, int noteMs, double amplitude) {
+        int step = frames(noteMs);
+        int ring = 2 * step;
+        double[] acc = new double[step * (notes.length - 1) + ring];
+        for (int k = 0; k < notes.length; k++) {
+            for (int i = 0; i < ring; i++) {
+                acc[k * step + i] += Math.sin(2 * Math.PI * notes[k] * i / SAMPLE_RATE) * envelope(i, ring) * 0.6;
+            }
+        }
+        short[] pcm = new short[acc.length];
+        for (int i = 0; i < acc.length; i++) {
+            pcm[i] = sample(acc[i], amplitude);
+        }
+        return pcm;
+    }
+
+    // Low tone with odd harmonics, repeated with gaps
+    private static short[] buzz(double hz, int toneMs, int gapMs, int repeats, double amplitude) {
+        int tone = frames(toneMs);
+        int period = tone + frames(gapMs);
+        short[] pcm = new short[period * (repeats - 1) + tone];
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < tone; i++) {
+                double t = 2 * Math.PI * hz * i / SAMPLE_RATE;
+                double v = Math.sin(t) + Math.sin(3 * t) / 3 + Math.sin(5 * t) / 5;
+                pcm[r * period + i] = sample(v * envelope(i, tone), amplitude);
+            }
+        }
+        return pcm;
+    }
+
+    // 5 ms attack, exponential decay; keeps cue edges from clicking
+    private static double envelope(int i, int n) {
+        int attack = frames(5);
+        double a = i < attack ? (double) i / attack : 1;
+        return a * Math.exp(-3.0 * i / n) * (1 - (double) i / n);
+    }
+
+    private static short sample(double v, double amplitude) {
+        return (short) Math.round(Math.max(-1, Math.min(1, v)) * amplitude * Short.MAX_VALUE);
+    }
+
+    private static int frames(int ms) {
+        return (int) (SAMPLE_RATE * ms / 1000);
+    }
+
+    private static final class LineOutput implements Output {
+        private SourceDataLine line;
+
+        @Override
+        public void open() throws Exception {
+            AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, CHUNK_FRAMES * 2 * LINE_CHUNKS);
+            line.start();
+        }
+
+        @Override
+        public void write(byte[] buf, int len) {
+            line.write(buf, 0, len);
+        }
+
+        @Override
+        public int queuedFrames() {
+            return (line.getBufferSize() - line.available()) / 2;
+        }
+
+        @Override
+        public void close() {
+            if (line != null && line.isOpen()) {
+                line.drain();
+                line.close();
+            }
+        }
+    }
+
+    // Consumes audio at the sample rate, like a device with the same buffer as LineOutput
+    static final class PacedOutput implements Output {
+        private long writtenFrames;
+        private double playedFrames;
+        private long lastNanos = System.nanoTime();
+
+        @Override
+        public void open() {
+        }
+
+        // play() unparks the audio thread, so a single parkNanos can return early
+        @Override
+        public void write(byte[] buf, int len) {
+            writtenFrames += len / 2;
+            long ahead;
+            while ((ahead = writtenFrames - CHUNK_FRAMES * LINE_CHUNKS - (long) advance()) > 0) {
+                LockSupport.parkNanos((long) (ahead * 1e9 / SAMPLE_RATE));
+            }
+        }
+
+        @Override
+        public int queuedFrames() {
+            return (int) (writtenFrames - (long) advance());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        // Underruns aren't made up: after an idle gap the device starts again from empty
+        private double advance() {
+            long now = System.nanoTime();
+            playedFrames = Math.min(writtenFrames, playedFrames + (now - lastNanos) * (SAMPLE_RATE / 1e9));
+            lastNanos = now;
+            return playedFrames;
+        }
+    }
+
+    // Trigger-to-output latency under bursts of cues from several threads:
+    //   java taskautomation.FeedbackSound [triggers] [line | paced]   (paced needs no audio device)
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        boolean paced = args.length > 1 && args[1].equals("paced");
+        FeedbackSound sound = paced ? new FeedbackSound(new PacedOutput(), false, true) : new FeedbackSound("on");
+        Thread.sleep(200);
+        LatencyHistogram callCost = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                Random rand = new Random(seed);
+                for (int i = 0; i < count / threads.length; i++) {
+                    long start = System.nanoTime();
+                    sound.play(Cue.values()[rand.nextInt(3)]);
+                    callCost.record(System.nanoTime() - start);
+                    // Mostly spaced out, with occasional rapid-fire bursts
+                    LockSupport.parkNanos(rand.nextInt(10) == 0 ? 100_000 : TimeUnit.MILLISECONDS.toNanos(5 + rand.nextInt(40)));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Thread.sleep(300);
+        System.out.println(sound.getReport());
+        System.out.printf("play() call p50 %.2f us, p99 %.2f us, max %.2f us%n",
+            callCost.percentile(0.50) / 1e3, callCost.percentile(0.99) / 1e3, callCost.max() / 1e3);
+        sound.stop();
+    }
+}
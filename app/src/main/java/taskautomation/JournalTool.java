@@ -0,0 +1,152 @@
+package taskautomation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Queries and exports the execution journal. Opens it read-only, so it is safe to run while the
+// app is writing.
+//
+//   java taskautomation.JournalTool [--dir journal] [--from T] [--to T] [--task NAME]
+//                                   [--format text|csv|json|tasks] [--steps]
+//
+// T is a date (2026-10-18), a local date-time (2026-10-18T09:30) or epoch milliseconds.
+// --format tasks prints one task name per run, so a window of past runs can be replayed:
+//   java taskautomation.JournalTool --from 2026-10-18 --format tasks | java -jar task-automation.jar --batch -
+public class JournalTool {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    public static void main(String[] args) throws IOException {
+        String dir = System.getProperty("taskautomation.journal", "journal");
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        String task = null;
+        String format = "text";
+        boolean steps = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--dir":
+                        dir = args[++i];
+                        break;
+                    case "--from":
+                        from = parseTime(args[++i]);
+                        break;
+                    case "--to":
+                        to = parseTime(args[++i]);
+                        break;
+                    case "--task":
+                        task = args[++i];
+                        break;
+                    case "--format":
+                        format = args[++i];
+                        break;
+                    case "--steps":
+                        steps = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+                }
+            }
+            if (!format.matches("text|csv|json|tasks")) {
+                throw new IllegalArgumentException("unknown format '" + format + "'");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("journal: " + e.getMessage());
+            System.err.println("usage: java taskautomation.JournalTool [--dir journal] [--from T] [--to T] [--task NAME] [--format text|csv|json|tasks] [--steps]");
+            System.exit(2);
+            return;
+        }
+
+        ExecutionJournal journal = ExecutionJournal.openReadOnly(Paths.get(dir));
+        List<ExecutionJournal.Entry> entries = journal.query(from, to, task);
+        PrintStream out = System.out;
+        switch (format) {
+            case "csv":
+                out.println("seq,task_id,task,start,end,duration_ms,outcome,error");
+                for (ExecutionJournal.Entry e : entries) {
+                    out.println(e.seq + "," + e.taskId + "," + csv(e.task) + "," + format(e.startMillis) + "," + format(e.endMillis) + ","
+                        + (e.endMillis - e.startMillis) + "," + e.outcome + "," + csv(e.error == null ? "" : e.error));
+                }
+                break;
+            case "json":
+                out.println("[");
+                for (int i = 0; i < entries.size(); i++) {
+                    out.println("  " + json(entries.get(i)) + (i + 1 < entries.size() ? "," : ""));
+                }
+                out.println("]");
+                break;
+            case "tasks":
+                for (ExecutionJournal.Entry e : entries) {
+                    out.println(e.task);
+                }
+                break;
+            default:
+                for (ExecutionJournal.Entry e : entries) {
+                    out.printf("%6d  %s  %8d ms  %-9s  %s%s%n", e.seq, format(e.startMillis), e.endMillis - e.startMillis,
+                        e.outcome, e.task, e.error == null ? "" : "  (" + e.error + ")");
+                    if (steps) {
+                        for (TaskEngine.Step step : e.steps) {
+                            out.printf("          %10.3f ms  %s%n", step.nanos / 1e6, step.label);
+                        }
+                    }
+                }
+                out.println(entries.size() + " run(s)");
+                break;
+        }
+    }
+
+    private static long parseTime(String value) {
+        if (value.matches("\\d{9,}")) {
+            return Long.parseLong(value);
+        }
+        LocalDateTime time = value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String format(long millis) {
+        return TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+    }
+
+    private static String csv(String s) {
+        return s.contains(",") || s.contains("\"") || s.contains("\n") ? "\"" + s.replace("\"", "\"\"") + "\"" : s;
+    }
+
+    private static String json(ExecutionJournal.Entry e) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"seq\":").append(e.seq)
+            .append(",\"taskId\":").append(e.taskId)
+            .append(",\"task\":").append(quote(e.task))
+            .append(",\"start\":").append(e.startMillis)
+            .append(",\"end\":").append(e.endMillis)
+            .append(",\"outcome\":\"").append(e.outcome).append('"')
+            .append(",\"error\":").append(e.error == null ? "null" : quote(e.error))
+            .append(",\"steps\":[");
+        for (int i = 0; i < e.steps.size(); i++) {
+            TaskEngine.Step step = e.steps.get(i);
+            sb.append(i == 0 ? "" : ",").append("{\"label\":").append(quote(step.label)).append(",\"nanos\":").append(step.nanos).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
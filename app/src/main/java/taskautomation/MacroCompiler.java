@@ -0,0 +1,371 @@
+package taskautomation;
+
+import java.awt.event.KeyEvent;
+import java.lang.reflect.Field;
+import java.util.*;
+
+// Parses the line-based macro format into a MacroPlan, rejecting anything invalid up front.
+//
+//   # comment
+//   name: Open Notepad           required, shown in the task list
+//   voice: open notepad, notepad optional voice command aliases
+//   typing: AUTO                 optional TextInjector strategy
+//   schedule: cron 0 9 * * 1-5   optional, repeatable; see TaskScheduler for the syntax
+//
+//   launch notepad               start a long-running program; "quoted args" keep spaces
+//   wait exit 5000               wait up to N ms for the last launched program to exit
+//   wait change 5000 [x,y,w,h]   wait up to N ms for the screen (or region) to differ from how it
+//                                looked before the preceding launch, run, type or keys step; with
+//                                none before it in this macro, from how it looked as the macro
+//                                started (an earlier workflow step's action is not seen)
+//   wait still 200 3000 [x,y,w,h]
+//                                wait up to 3000 ms for it to stop changing for 200 ms
+//   run [timeout=ms] [ok=0,1|any] cmd /c start ...
+//                                run a program to completion (default timeout 10 s, ok=0)
+//   delay 500                    sleep N ms
+//   type Hello\nCreated {timestamp}   type text; \n \t \\ \{ escapes, {timestamp} placeholder
+//   keys ctrl+s                  press a chord; names are KeyEvent VK_* names or aliases
+public final class MacroCompiler {
+    private static final Map<String, Integer> KEY_ALIASES = new HashMap<>();
+
+    static {
+        KEY_ALIASES.put("ctrl", KeyEvent.VK_CONTROL);
+        KEY_ALIASES.put("control", KeyEvent.VK_CONTROL);
+        KEY_ALIASES.put("alt", KeyEvent.VK_ALT);
+        KEY_ALIASES.put("shift", KeyEvent.VK_SHIFT);
+        KEY_ALIASES.put("win", KeyEvent.VK_WINDOWS);
+        KEY_ALIASES.put("meta", KeyEvent.VK_META);
+        KEY_ALIASES.put("cmd", KeyEvent.VK_META);
+        KEY_ALIASES.put("esc", KeyEvent.VK_ESCAPE);
+        KEY_ALIASES.put("del", KeyEvent.VK_DELETE);
+        KEY_ALIASES.put("return", KeyEvent.VK_ENTER);
+        KEY_ALIASES.put("pgup", KeyEvent.VK_PAGE_UP);
+        KEY_ALIASES.put("pgdn", KeyEvent.VK_PAGE_DOWN);
+        // Common names resolve from compile-time constants; only exotic ones need reflection,
+        // which would load KeyEvent (and with it the AWT native library)
+        KEY_ALIASES.put("enter", KeyEvent.VK_ENTER);
+        KEY_ALIASES.put("tab", KeyEvent.VK_TAB);
+        KEY_ALIASES.put("space", KeyEvent.VK_SPACE);
+        KEY_ALIASES.put("escape", KeyEvent.VK_ESCAPE);
+        KEY_ALIASES.put("delete", KeyEvent.VK_DELETE);
+        KEY_ALIASES.put("backspace", KeyEvent.VK_BACK_SPACE);
+        KEY_ALIASES.put("home", KeyEvent.VK_HOME);
+        KEY_ALIASES.put("end", KeyEvent.VK_END);
+        KEY_ALIASES.put("up", KeyEvent.VK_UP);
+        KEY_ALIASES.put("down", KeyEvent.VK_DOWN);
+        KEY_ALIASES.put("left", KeyEvent.VK_LEFT);
+        KEY_ALIASES.put("right", KeyEvent.VK_RIGHT);
+        for (char c = 'a'; c <= 'z'; c++) {
+            KEY_ALIASES.put(String.valueOf(c), KeyEvent.VK_A + (c - 'a'));
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            KEY_ALIASES.put(String.valueOf(c), KeyEvent.VK_0 + (c - '0'));
+        }
+        for (int f = 1; f <= 12; f++) {
+            KEY_ALIASES.put("f" + f, KeyEvent.VK_F1 + (f - 1));
+        }
+    }
+
+    private static final int DEFAULT_RUN_TIMEOUT_MS = 10_000;
+
+    private MacroCompiler() {
+    }
+
+    public static MacroPlan compile(String source, String origin) {
+        String name = null;
+        List<String> voice = new ArrayList<>();
+        List<String> schedules = new ArrayList<>();
+        TextInjector.Strategy typing = TextInjector.Strategy.ADAPTIVE;
+        List<int[]> steps = new ArrayList<>();
+        List<int[]> exitSets = new ArrayList<>();
+        List<int[]> chords = new ArrayList<>();
+        List<MacroPlan.Template[]> commands = new ArrayList<>();
+        List<MacroPlan.Template> texts = new ArrayList<>();
+        List<MacroPlan.ScreenWait> screenWaits = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+
+        String[] lines = source.split("\r?\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String where = origin + ":" + (i + 1) + ": ";
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            int space = indexOfWhitespace(line);
+            if (colon > 0 && (space < 0 || colon < space)) {
+                String key = line.substring(0, colon).trim().toLowerCase();
+                String value = line.substring(colon + 1).trim();
+                switch (key) {
+                    case "name":
+                        if (value.isEmpty()) throw new IllegalArgumentException(where + "empty name");
+                        name = value;
+                        break;
+                    case "voice":
+                        for (String alias : value.split(",")) {
+                            if (!alias.trim().isEmpty()) voice.add(alias.trim().toLowerCase());
+                        }
+                        break;
+                    case "schedule":
+                        try {
+                            TaskScheduler.validate(value);
+                        } catch (RuntimeException e) {
+                            throw new IllegalArgumentException(where + "bad schedule: " + e.getMessage());
+                        }
+                        schedules.add(value);
+                        break;
+                    case "typing":
+                        try {
+                            typing = TextInjector.Strategy.valueOf(value.toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException(where + "unknown typing strategy '" + value + "'");
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException(where + "unknown header '" + key + "'");
+                }
+                continue;
+            }
+            String op = space < 0 ? line : line.substring(0, space);
+            String arg = space < 0 ? "" : line.substring(space + 1).trim();
+            switch (op.toLowerCase()) {
+                case "launch": {
+                    List<String> args = tokenize(arg, where);
+                    if (args.isEmpty()) throw new IllegalArgumentException(where + "launch needs a command");
+                    MacroPlan.Template[] command = new MacroPlan.Template[args.size()];
+                    for (int a = 0; a < command.length; a++) {
+                        command[a] = template(args.get(a), false, where);
+                    }
+                    commands.add(command);
+                    steps.add(new int[]{MacroPlan.OP_LAUNCH, commands.size() - 1, 0});
+                    exitSets.add(null);
+                    break;
+                }
+                case "run": {
+                    List<String> args = tokenize(arg, where);
+                    int timeout = DEFAULT_RUN_TIMEOUT_MS;
+                    int[] accepted = {0};
+                    while (!args.isEmpty() && (args.get(0).startsWith("timeout=") || args.get(0).startsWith("ok="))) {
+                        String option = args.remove(0);
+                        if (option.startsWith("timeout=")) {
+                            timeout = millis(option.substring(8), where);
+                        } else {
+                            accepted = exitCodes(option.substring(3), where);
+                        }
+                    }
+                    if (args.isEmpty()) throw new IllegalArgumentException(where + "run needs a command");
+                    MacroPlan.Template[] command = new MacroPlan.Template[args.size()];
+                    for (int a = 0; a < command.length; a++) {
+                        command[a] = template(args.get(a), false, where);
+                    }
+                    commands.add(command);
+                    steps.add(new int[]{MacroPlan.OP_RUN, commands.size() - 1, timeout});
+                    exitSets.add(accepted);
+                    break;
+                }
+                case "delay":
+                    steps.add(new int[]{MacroPlan.OP_DELAY, millis(arg, where), 0});
+                    exitSets.add(null);
+                    break;
+                case "wait": {
+                    String[] parts = arg.split("\\s+");
+                    String kind = parts[0].toLowerCase();
+                    if (kind.equals("exit") && parts.length == 2) {
+                        steps.add(new int[]{MacroPlan.OP_WAIT_EXIT, 0, millis(parts[1], where)});
+                    } else if (kind.equals("change") && (parts.length == 2 || parts.length == 3)) {
+                        screenWaits.add(new MacroPlan.ScreenWait(0, parts.length == 3 ? region(parts[2], where) : null));
+                        steps.add(new int[]{MacroPlan.OP_WAIT_SCREEN, screenWaits.size() - 1, millis(parts[1], where)});
+                    } else if (kind.equals("still") && (parts.length == 3 || parts.length == 4)) {
+                        int quiet = millis(parts[1], where);
+                        if (quiet == 0) throw new IllegalArgumentException(where + "'wait still' needs a quiet time above 0 ms");
+                        screenWaits.add(new MacroPlan.ScreenWait(quiet, parts.length == 4 ? region(parts[3], where) : null));
+                        steps.add(new int[]{MacroPlan.OP_WAIT_SCREEN, screenWaits.size() - 1, millis(parts[2], where)});
+                    } else {
+                        throw new IllegalArgumentException(where + "expected 'wait exit <ms>', 'wait change <ms> [x,y,w,h]' or 'wait still <quiet ms> <ms> [x,y,w,h]'");
+                    }
+                    exitSets.add(null);
+                    break;
+                }
+                case "type":
+                    if (space < 0) throw new IllegalArgumentException(where + "type needs text");
+                    // Keep the text exactly as written after the single separating space
+                    texts.add(template(lines[i].substring(lines[i].indexOf(op) + op.length() + 1), true, where));
+                    steps.add(new int[]{MacroPlan.OP_TYPE, texts.size() - 1, 0});
+                    exitSets.add(null);
+                    break;
+                case "keys":
+                    chords.add(chord(arg, where));
+                    steps.add(new int[]{MacroPlan.OP_KEYS, chords.size() - 1, 0});
+                    exitSets.add(null);
+                    break;
+                default:
+                    throw new IllegalArgumentException(where + "unknown step '" + op + "'");
+            }
+            labels.add(label(steps.size(), op.toLowerCase(), arg));
+        }
+        if (name == null) {
+            throw new IllegalArgumentException(origin + ": missing 'name:' header");
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException(origin + ": macro '" + name + "' has no steps");
+        }
+
+        int[] ops = new int[steps.size()];
+        int[] operands = new int[steps.size()];
+        int[] timeouts = new int[steps.size()];
+        for (int s = 0; s < ops.length; s++) {
+            ops[s] = steps.get(s)[0];
+            operands[s] = steps.get(s)[1];
+            timeouts[s] = steps.get(s)[2];
+        }
+        return new MacroPlan(name, origin, voice, schedules, typing, ops, operands, timeouts, exitSets.toArray(new int[0][]),
+            chords.toArray(new int[0][]), commands.toArray(new MacroPlan.Template[0][]), texts.toArray(new MacroPlan.Template[0]),
+            screenWaits.toArray(new MacroPlan.ScreenWait[0]), labels.toArray(new String[0]));
+    }
+
+    // Short step description for metrics, e.g. "6 keys ctrl+s"; typed text is left out
+    private static String label(int step, String op, String arg) {
+        if (op.equals("type") || arg.isEmpty()) {
+            return step + " " + op;
+        }
+        return step + " " + op + " " + (arg.length() > 24 ? arg.substring(0, 21) + "..." : arg);
+    }
+
+    private static int[] exitCodes(String spec, String where) {
+        if (spec.equalsIgnoreCase("any")) {
+            return null;
+        }
+        String[] parts = spec.split(",");
+        int[] codes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                codes[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(where + "bad exit code '" + parts[i] + "'");
+            }
+        }
+        return codes;
+    }
+
+    private static int indexOfWhitespace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isWhitespace(s.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    private static int millis(String arg, String where) {
+        try {
+            int ms = Integer.parseInt(arg.trim());
+            if (ms < 0) throw new NumberFormatException();
+            return ms;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "expected a non-negative number of milliseconds, got '" + arg + "'");
+        }
+    }
+
+    // "x,y,w,h" in screen pixels
+    private static int[] region(String spec, String where) {
+        String[] parts = spec.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException(where + "expected a region as x,y,width,height, got '" + spec + "'");
+        }
+        int[] region = new int[4];
+        for (int i = 0; i < 4; i++) {
+            try {
+                region[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(where + "bad region '" + spec + "'");
+            }
+        }
+        if (region[0] < 0 || region[1] < 0 || region[2] <= 0 || region[3] <= 0) {
+            throw new IllegalArgumentException(where + "region '" + spec + "' needs a non-negative origin and a positive size");
+        }
+        return region;
+    }
+
+    static int[] chord(String spec, String where) {
+        String[] names = spec.split("\\+");
+        int[] keys = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = keyCode(names[i].trim(), where);
+        }
+        return keys;
+    }
+
+    static int keyCode(String name, String where) {
+        Integer alias = KEY_ALIASES.get(name.toLowerCase());
+        if (alias != null) {
+            return alias;
+        }
+        try {
+            Field field = KeyEvent.class.getField("VK_" + name.toUpperCase());
+            return field.getInt(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(where + "unknown key '" + name + "'");
+        }
+    }
+
+    private static List<String> tokenize(String arg, String where) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException(where + "unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private static MacroPlan.Template template(String raw, boolean escapes, String where) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (escapes && c == '\\' && i + 1 < raw.length()) {
+                char next = raw.charAt(++i);
+                switch (next) {
+                    case 'n': current.append('\n'); break;
+                    case 't': current.append('\t'); break;
+                    case '\\': current.append('\\'); break;
+                    case '{': current.append('{'); break;
+                    default: throw new IllegalArgumentException(where + "unknown escape '\\" + next + "'");
+                }
+            } else if (c == '{') {
+                int end = raw.indexOf('}', i);
+                if (end < 0) throw new IllegalArgumentException(where + "unterminated placeholder");
+                String variable = raw.substring(i + 1, end);
+                if (!variable.equals("timestamp")) {
+                    throw new IllegalArgumentException(where + "unknown placeholder '{" + variable + "}'");
+                }
+                parts.add(current.toString());
+                parts.add(null);
+                current.setLength(0);
+                i = end;
+            } else {
+                current.append(c);
+            }
+        }
+        parts.add(current.toString());
+        return new MacroPlan.Template(parts);
+    }
+}
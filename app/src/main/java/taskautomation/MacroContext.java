@@ -0,0 +1,32 @@
+package taskautomation;
+
+// What a compiled macro needs from the outside world while it runs
+public interface MacroContext {
+    // Starts a program and returns immediately; its exit is tracked but not waited for
+    ProcessLauncher.Launch launch(String[] command) throws Exception;
+
+    // Runs a program to completion, killing it after timeoutMs (0 = no limit)
+    ProcessLauncher.Result run(String[] command, long timeoutMs) throws Exception;
+
+    void pause(int ms) throws InterruptedException;
+
+    void type(String text, TextInjector.Strategy strategy) throws InterruptedException;
+
+    void chord(int[] keyCodes) throws InterruptedException;
+
+    // Blocks until the region {x, y, width, height} (null = whole screen) changes, or with
+    // quietMs > 0 until it has stopped changing for that long; false if timeoutMs passes first
+    boolean waitForScreen(int[] region, int quietMs, int timeoutMs) throws InterruptedException;
+
+    // Called before the step a "wait change" follows; the wait then compares against this capture
+    // rather than its own first one
+    default void markScreen(int[] region) {
+    }
+
+    // Held while a macro drives the keyboard so parallel tasks don't interleave keystrokes
+    Object inputLock();
+
+    // Called after each step completes, with how long it took
+    default void stepFinished(MacroPlan plan, int step, long nanos) {
+    }
+}
@@ -0,0 +1,163 @@
+package taskautomation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+// Built-in macros plus any *.macro files in the macro directory (-Dtaskautomation.macros, default
+// "macros"). Each file is compiled once and the plan is cached against its modification time, so
+// reload() only recompiles files that changed. A file whose name matches a built-in replaces it.
+// *.workflow files in the same directory are compiled after the macros they refer to.
+public class MacroLibrary {
+    private static final String[][] BUILTIN_SOURCES = {
+        {"builtin:notepad", String.join("\n",
+            "name: Open Notepad",
+            "voice: write a note, new note, take a note",
+            "typing: AUTO",
+            "launch notepad",
+            "wait change 5000",
+            "wait still 200 3000",
+            "type Hello, this is an automated note!\\nCreated on: {timestamp}",
+            "keys ctrl+s",
+            "wait change 3000",
+            "wait still 100 2000",
+            "type Note_{timestamp}.txt",
+            "keys enter",
+            "wait change 3000",
+            "keys alt+f4")},
+        {"builtin:email", String.join("\n",
+            "name: Open Email Client",
+            "voice: compose email, new email, send email",
+            "run cmd /c start mailto:example@domain.com?subject=Automated%20Email&body=This%20is%20an%20automated%20email%20sent%20on%20{timestamp}")},
+        {"builtin:browser", String.join("\n",
+            "name: Open Browser",
+            "voice: open browser, search google, google",
+            "run cmd /c start https://www.google.com")},
+        {"builtin:explorer", String.join("\n",
+            "name: Open File Explorer",
+            "voice: open documents, show documents",
+            "run ok=0,1 explorer Documents")},
+    };
+
+    private static final List<MacroPlan> BUILTINS = new ArrayList<>();
+
+    static {
+        for (String[] builtin : BUILTIN_SOURCES) {
+            BUILTINS.add(MacroCompiler.compile(builtin[1], builtin[0]));
+        }
+    }
+
+    private static final class CachedPlan {
+        final FileTime modified;
+        final MacroPlan plan;
+
+        CachedPlan(FileTime modified, MacroPlan plan) {
+            this.modified = modified;
+            this.plan = plan;
+        }
+    }
+
+    private final Path directory;
+    private final Map<Path, CachedPlan> fileCache = new HashMap<>();
+    private volatile Map<String, MacroPlan> plans = Collections.emptyMap();
+    private volatile Map<String, Workflow> workflows = Collections.emptyMap();
+    private volatile List<String> errors = Collections.emptyList();
+
+    public MacroLibrary() {
+        this(Paths.get(System.getProperty("taskautomation.macros", "macros")));
+    }
+
+    public MacroLibrary(Path directory) {
+        this.directory = directory;
+        reload();
+    }
+
+    // Rescans the macro directory; invalid files are skipped and reported through getErrors()
+    public synchronized void reload() {
+        Map<String, MacroPlan> loaded = new LinkedHashMap<>();
+        for (MacroPlan plan : BUILTINS) {
+            loaded.put(plan.getName(), plan);
+        }
+        List<String> problems = new ArrayList<>();
+        Set<Path> seen = new HashSet<>();
+        if (Files.isDirectory(directory)) {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.macro")) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                problems.add(directory + ": " + e.getMessage());
+            }
+            Collections.sort(files);
+            for (Path file : files) {
+                seen.add(file);
+                try {
+                    FileTime modified = Files.getLastModifiedTime(file);
+                    CachedPlan cached = fileCache.get(file);
+                    if (cached == null || !cached.modified.equals(modified)) {
+                        String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                        cached = new CachedPlan(modified, MacroCompiler.compile(source, file.toString()));
+                        fileCache.put(file, cached);
+                    }
+                    loaded.put(cached.plan.getName(), cached.plan);
+                } catch (IOException | IllegalArgumentException e) {
+                    fileCache.remove(file);
+                    problems.add(e.getMessage());
+                }
+            }
+        }
+        fileCache.keySet().retainAll(seen);
+        Map<String, Workflow> flows = new LinkedHashMap<>();
+        if (Files.isDirectory(directory)) {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.workflow")) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                problems.add(directory + ": " + e.getMessage());
+            }
+            Collections.sort(files);
+            for (Path file : files) {
+                try {
+                    Workflow workflow = Workflow.load(file, loaded::get);
+                    if (loaded.containsKey(workflow.getName())) {
+                        throw new IllegalArgumentException(file + ": name '" + workflow.getName() + "' is already a macro");
+                    }
+                    flows.put(workflow.getName(), workflow);
+                } catch (IOException | IllegalArgumentException e) {
+                    problems.add(e.getMessage());
+                }
+            }
+        }
+        plans = Collections.unmodifiableMap(loaded);
+        workflows = Collections.unmodifiableMap(flows);
+        errors = Collections.unmodifiableList(problems);
+    }
+
+    public MacroPlan get(String name) {
+        return plans.get(name);
+    }
+
+    public Collection<MacroPlan> all() {
+        return plans.values();
+    }
+
+    public Workflow getWorkflow(String name) {
+        return workflows.get(name);
+    }
+
+    public Collection<Workflow> allWorkflows() {
+        return workflows.values();
+    }
+
+    // Macros first, then workflows
+    public String[] names() {
+        List<String> names = new ArrayList<>(plans.keySet());
+        names.addAll(workflows.keySet());
+        return names.toArray(new String[0]);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,251 @@
+package taskautomation;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+
+// A validated, pre-resolved macro. Steps are parallel int arrays (opcode + operand) pointing into
+// pools of key chords, launch commands and text templates, so running a plan is a single switch
+// loop with no parsing. Plans are immutable and safe to run from several threads at once.
+public final class MacroPlan {
+    static final int OP_LAUNCH = 1;
+    static final int OP_DELAY = 2;
+    static final int OP_TYPE = 3;
+    static final int OP_KEYS = 4;
+    static final int OP_WAIT_EXIT = 5;
+    static final int OP_RUN = 6;
+    static final int OP_WAIT_SCREEN = 7;
+
+    private final String name;
+    private final String origin;
+    private final List<String> voiceAliases;
+    private final List<String> schedules;
+    private final TextInjector.Strategy typing;
+    private final int[] ops;
+    private final int[] operands;
+    private final int[] timeouts;
+    private final int[][] acceptedExits;
+    private final int[][] chords;
+    private final Template[][] commands;
+    private final Template[] texts;
+    private final ScreenWait[] screenWaits;
+    private final String[] stepLabels;
+    private final int firstInputStep;
+    // Per step, the screen wait whose baseline is captured just before it runs, or -1
+    private final int[] marks;
+
+    MacroPlan(String name, String origin, List<String> voiceAliases, List<String> schedules, TextInjector.Strategy typing,
+              int[] ops, int[] operands, int[] timeouts, int[][] acceptedExits, int[][] chords, Template[][] commands, Template[] texts,
+              ScreenWait[] screenWaits, String[] stepLabels) {
+        this.name = name;
+        this.origin = origin;
+        this.voiceAliases = Collections.unmodifiableList(new ArrayList<>(voiceAliases));
+        this.schedules = Collections.unmodifiableList(new ArrayList<>(schedules));
+        this.typing = typing;
+        this.ops = ops;
+        this.operands = operands;
+        this.timeouts = timeouts;
+        this.acceptedExits = acceptedExits;
+        this.chords = chords;
+        this.commands = commands;
+        this.texts = texts;
+        this.screenWaits = screenWaits;
+        this.stepLabels = stepLabels;
+        int first = ops.length;
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == OP_TYPE || ops[i] == OP_KEYS) {
+                first = i;
+                break;
+            }
+        }
+        this.firstInputStep = first;
+        // A "wait change" compares against the screen from before the action it follows (past any
+        // delays and waits in between), so a window that finishes drawing first still counts
+        this.marks = new int[ops.length];
+        Arrays.fill(marks, -1);
+        for (int w = 0; w < ops.length; w++) {
+            if (ops[w] != OP_WAIT_SCREEN || screenWaits[operands[w]].quietMs != 0) {
+                continue;
+            }
+            int action = w - 1;
+            while (action >= 0 && (ops[action] == OP_DELAY || ops[action] == OP_WAIT_EXIT || ops[action] == OP_WAIT_SCREEN)) {
+                action--;
+            }
+            if (action >= 0) {
+                marks[action] = operands[w];
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public List<String> getVoiceAliases() {
+        return voiceAliases;
+    }
+
+    // Schedule specs from "schedule:" headers, in TaskScheduler syntax
+    public List<String> getSchedules() {
+        return schedules;
+    }
+
+    public TextInjector.Strategy getTyping() {
+        return typing;
+    }
+
+    public int getStepCount() {
+        return ops.length;
+    }
+
+    public String getStepLabel(int step) {
+        return stepLabels[step];
+    }
+
+    public boolean needsInput() {
+        return firstInputStep < ops.length;
+    }
+
+    public void run(MacroContext ctx) throws Exception {
+        run(ctx, typing);
+    }
+
+    public void run(MacroContext ctx, TextInjector.Strategy typing) throws Exception {
+        // Variables are resolved once per run; {timestamp} is the same for every step
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmm").format(new Date());
+        ProcessLauncher.Launch[] lastLaunch = new ProcessLauncher.Launch[1];
+        execute(ctx, 0, firstInputStep, timestamp, typing, lastLaunch);
+        if (firstInputStep < ops.length) {
+            synchronized (ctx.inputLock()) {
+                execute(ctx, firstInputStep, ops.length, timestamp, typing, lastLaunch);
+            }
+        }
+    }
+
+    private void execute(MacroContext ctx, int from, int to, String timestamp, TextInjector.Strategy typing,
+                         ProcessLauncher.Launch[] lastLaunch) throws Exception {
+        for (int pc = from; pc < to; pc++) {
+            int operand = operands[pc];
+            if (marks[pc] >= 0) {
+                ctx.markScreen(screenWaits[marks[pc]].region);
+            }
+            long start = System.nanoTime();
+            switch (ops[pc]) {
+                case OP_LAUNCH:
+                    lastLaunch[0] = ctx.launch(resolve(commands[operand], timestamp));
+                    break;
+                case OP_RUN:
+                    checkExit(ctx.run(resolve(commands[operand], timestamp), timeouts[pc]), acceptedExits[pc]);
+                    break;
+                case OP_DELAY:
+                    ctx.pause(operand);
+                    break;
+                case OP_TYPE:
+                    ctx.type(texts[operand].resolve(timestamp), typing);
+                    break;
+                case OP_KEYS:
+                    ctx.chord(chords[operand]);
+                    break;
+                case OP_WAIT_EXIT:
+                    if (lastLaunch[0] != null) {
+                        try {
+                            lastLaunch[0].await(timeouts[pc]);
+                        } catch (TimeoutException e) {
+                            throw new IllegalStateException("timed out after " + timeouts[pc] + " ms waiting for " + lastLaunch[0].command() + " to exit");
+                        }
+                    }
+                    break;
+                case OP_WAIT_SCREEN: {
+                    ScreenWait wait = screenWaits[operand];
+                    if (!ctx.waitForScreen(wait.region, wait.quietMs, timeouts[pc])) {
+                        throw new IllegalStateException("timed out after " + timeouts[pc] + " ms waiting for " + wait);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("bad opcode " + ops[pc] + " at step " + pc);
+            }
+            ctx.stepFinished(this, pc, System.nanoTime() - start);
+        }
+    }
+
+    // accepted == null means any exit code is fine
+    private static void checkExit(ProcessLauncher.Result result, int[] accepted) {
+        if (result.timedOut) {
+            throw new IllegalStateException(result.toString());
+        }
+        if (accepted == null) {
+            return;
+        }
+        for (int code : accepted) {
+            if (code == result.exitCode) {
+                return;
+            }
+        }
+        String stderr = result.stderr.trim();
+        throw new IllegalStateException(result + (stderr.isEmpty() ? "" : ": " + stderr));
+    }
+
+    private static String[] resolve(Template[] command, String timestamp) {
+        String[] args = new String[command.length];
+        for (int i = 0; i < command.length; i++) {
+            args[i] = command[i].resolve(timestamp);
+        }
+        return args;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + ops.length + " steps, " + origin + ")";
+    }
+
+    // A "wait change" (quietMs == 0) or "wait still" step; region is {x, y, width, height} or null
+    // for the whole screen
+    static final class ScreenWait {
+        final int quietMs;
+        final int[] region;
+
+        ScreenWait(int quietMs, int[] region) {
+            this.quietMs = quietMs;
+            this.region = region;
+        }
+
+        @Override
+        public String toString() {
+            String where = region == null ? "the screen" : "region " + region[0] + "," + region[1] + "," + region[2] + "," + region[3];
+            return quietMs == 0 ? where + " to change" : where + " to stay still for " + quietMs + " ms";
+        }
+    }
+
+    // Literal text with {timestamp} placeholders split out at compile time
+    static final class Template {
+        private final String literal;
+        private final String[] parts;
+
+        Template(List<String> parts) {
+            if (parts.size() == 1) {
+                this.literal = parts.get(0);
+                this.parts = null;
+            } else {
+                this.literal = null;
+                this.parts = parts.toArray(new String[0]);
+            }
+        }
+
+        // Even indices are literal text, odd indices are placeholder slots
+        String resolve(String timestamp) {
+            if (literal != null) {
+                return literal;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < parts.length; i++) {
+                sb.append((i & 1) == 0 ? parts[i] : timestamp);
+            }
+            return sb.toString();
+        }
+    }
+}
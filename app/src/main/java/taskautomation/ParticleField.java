@@ -0,0 +1,55 @@
+package taskautomation;
+
+import java.util.Random;
+
+// Particle state as parallel primitive arrays; update() allocates nothing
+public class ParticleField {
+    private final int count;
+    final float[] x;
+    final float[] y;
+    final float[] vx;
+    final float[] vy;
+
+    public ParticleField(int count, int width, int height, long seed) {
+        this.count = count;
+        x = new float[count];
+        y = new float[count];
+        vx = new float[count];
+        vy = new float[count];
+        Random rand = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            x[i] = rand.nextInt(Math.max(1, width));
+            y[i] = rand.nextInt(Math.max(1, height));
+            // Same speed range as before: up to 1 px per 100 ms tick, expressed per second
+            vx[i] = (rand.nextFloat() - 0.5f) * 20f;
+            vy[i] = (rand.nextFloat() - 0.5f) * 20f;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void update(float dtSeconds, int maxX, int maxY) {
+        for (int i = 0; i < count; i++) {
+            float px = x[i] + vx[i] * dtSeconds;
+            float py = y[i] + vy[i] * dtSeconds;
+            if (px < 0) {
+                px = -px;
+                vx[i] = -vx[i];
+            } else if (px > maxX) {
+                px = 2 * maxX - px;
+                vx[i] = -vx[i];
+            }
+            if (py < 0) {
+                py = -py;
+                vy[i] = -vy[i];
+            } else if (py > maxY) {
+                py = 2 * maxY - py;
+                vy[i] = -vy[i];
+            }
+            x[i] = px;
+            y[i] = py;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package taskautomation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-producer/single-consumer ring of fixed-size PCM frames, preallocated up front.
+// Each slot also carries the System.nanoTime() at which the frame was captured.
+public class PcmRingBuffer {
+    private final int frameSamples;
+    private final int capacity;
+    private final short[] samples;
+    private final long[] captureNanos;
+    private final AtomicLong head = new AtomicLong(); // next frame to write
+    private final AtomicLong tail = new AtomicLong(); // next frame to read
+
+    public PcmRingBuffer(int frameSamples, int capacityFrames) {
+        this.frameSamples = frameSamples;
+        this.capacity = capacityFrames;
+        this.samples = new short[frameSamples * capacityFrames];
+        this.captureNanos = new long[capacityFrames];
+    }
+
+    public int frameSamples() {
+        return frameSamples;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    // Returns false (and copies nothing) when the ring is full
+    public boolean offer(short[] src, int offset, long nanos) {
+        long h = head.get();
+        if (h - tail.get() >= capacity) {
+            return false;
+        }
+        int slot = (int) (h % capacity);
+        System.arraycopy(src, offset, samples, slot * frameSamples, frameSamples);
+        captureNanos[slot] = nanos;
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    // Copies the oldest frame into dst and returns its capture time, or -1 when empty
+    public long poll(short[] dst, int offset) {
+        long t = tail.get();
+        if (t == head.get()) {
+            return -1;
+        }
+        int slot = (int) (t % capacity);
+        System.arraycopy(samples, slot * frameSamples, dst, offset, frameSamples);
+        long nanos = captureNanos[slot];
+        tail.lazySet(t + 1);
+        return nanos;
+    }
+}
@@ -0,0 +1,223 @@
+package taskautomation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Starts processes from argument arrays with ProcessBuilder and tracks them to completion.
+// Attached launches drain stdout/stderr on a small daemon pool into bounded tail buffers, so a
+// chatty child can never fill its pipe and stall. Detached launches (GUI apps that keep running)
+// discard output and need no threads. Either way the completion future is driven by
+// Process.onExit(), so it fires as soon as the process really ends; a timeout destroys the process
+// and completes the future as timed out. Listeners see every result.
+public class ProcessLauncher {
+    private static final int OUTPUT_TAIL_BYTES = 8 * 1024;
+    private static final long DRAIN_GRACE_MS = 100;
+    private static final long DESTROY_GRACE_MS = 2000;
+
+    public interface Listener {
+        void onExit(Result result);
+    }
+
+    public static final class Result {
+        public final String command;
+        public final int exitCode;
+        public final long elapsedNanos;
+        public final boolean timedOut;
+        public final boolean detached;
+        public final String stdout;
+        public final String stderr;
+
+        Result(String command, int exitCode, long elapsedNanos, boolean timedOut, boolean detached, String stdout, String stderr) {
+            this.command = command;
+            this.detached = detached;
+            this.exitCode = exitCode;
+            this.elapsedNanos = elapsedNanos;
+            this.timedOut = timedOut;
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        @Override
+        public String toString() {
+            return command + (timedOut ? " timed out" : " exited " + exitCode) + " in " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms";
+        }
+    }
+
+    public static final class Launch {
+        private final Process process;
+        private final String command;
+        private final CompletableFuture<Result> completion;
+
+        Launch(Process process, String command, CompletableFuture<Result> completion) {
+            this.process = process;
+            this.command = command;
+            this.completion = completion;
+        }
+
+        public Process process() {
+            return process;
+        }
+
+        public String command() {
+            return command;
+        }
+
+        public CompletableFuture<Result> completion() {
+            return completion;
+        }
+
+        // Waits for exit; on interrupt the process tree is destroyed and the interrupt rethrown
+        public Result await(long timeoutMs) throws InterruptedException, TimeoutException {
+            try {
+                return timeoutMs > 0 ? completion.get(timeoutMs, TimeUnit.MILLISECONDS) : completion.get();
+            } catch (InterruptedException e) {
+                destroyTree(process);
+                throw e;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    // Keeps the last capacity bytes written, plus a running total
+    static final class BoundedOutput {
+        private final byte[] ring;
+        private long total;
+
+        BoundedOutput(int capacity) {
+            ring = new byte[capacity];
+        }
+
+        synchronized void write(byte[] buf, int len) {
+            for (int i = 0; i < len; i++) {
+                ring[(int) (total++ % ring.length)] = buf[i];
+            }
+        }
+
+        synchronized String tail() {
+            int n = (int) Math.min(total, ring.length);
+            byte[] out = new byte[n];
+            int start = (int) ((total - n) % ring.length);
+            for (int i = 0; i < n; i++) {
+                out[i] = ring[(start + i) % ring.length];
+            }
+            return new String(out, Charset.defaultCharset());
+        }
+    }
+
+    private final ExecutorService drainers;
+    private final ScheduledExecutorService timer;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ProcessLauncher() {
+        AtomicInteger drainCount = new AtomicInteger(1);
+        drainers = Executors.newCachedThreadPool(r -> daemon(r, "process-drain-" + drainCount.getAndIncrement()));
+        timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "process-timeout"));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Starts a long-lived program whose output nobody reads (e.g. notepad)
+    public Launch startDetached(String[] command) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD);
+        return start(builder, command, 0, null, null);
+    }
+
+    // Starts a program and drains its output; timeoutMs <= 0 means no limit
+    public Launch start(String[] command, long timeoutMs) throws IOException {
+        return start(new ProcessBuilder(command), command, timeoutMs, new BoundedOutput(OUTPUT_TAIL_BYTES), new BoundedOutput(OUTPUT_TAIL_BYTES));
+    }
+
+    // Runs a program to completion
+    public Result run(String[] command, long timeoutMs) throws IOException, InterruptedException, TimeoutException {
+        return start(command, timeoutMs).await(0);
+    }
+
+    private Launch start(ProcessBuilder builder, String[] command, long timeoutMs, BoundedOutput out, BoundedOutput err) throws IOException {
+        String display = String.join(" ", command);
+        long started = System.nanoTime();
+        Process process = builder.start();
+        process.getOutputStream().close();
+
+        CompletableFuture<Void> drained;
+        if (out != null) {
+            drained = CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> drain(process.getInputStream(), out), drainers),
+                CompletableFuture.runAsync(() -> drain(process.getErrorStream(), err), drainers));
+        } else {
+            drained = CompletableFuture.completedFuture(null);
+        }
+
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> timeout = null;
+        if (timeoutMs > 0) {
+            timeout = timer.schedule(() -> {
+                if (process.isAlive()) {
+                    timedOut.set(true);
+                    destroyTree(process);
+                    timer.schedule(() -> {
+                        if (process.isAlive()) {
+                            process.descendants().forEach(ProcessHandle::destroyForcibly);
+                            process.destroyForcibly();
+                        }
+                    }, DESTROY_GRACE_MS, TimeUnit.MILLISECONDS);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        ScheduledFuture<?> cancelTimeout = timeout;
+
+        // Output may stay open after exit if a grandchild inherited the pipes; don't wait for it long
+        CompletableFuture<Result> completion = process.onExit()
+            .thenCompose(p -> drained.completeOnTimeout(null, DRAIN_GRACE_MS, TimeUnit.MILLISECONDS))
+            .thenApply(ignored -> {
+                if (cancelTimeout != null) {
+                    cancelTimeout.cancel(false);
+                }
+                return new Result(display, process.exitValue(), System.nanoTime() - started, timedOut.get(), out == null,
+                    out == null ? "" : out.tail(), err == null ? "" : err.tail());
+            });
+        completion.thenAccept(result -> {
+            for (Listener listener : listeners) {
+                listener.onExit(result);
+            }
+        });
+        return new Launch(process, display, completion);
+    }
+
+    private static void drain(InputStream in, BoundedOutput sink) {
+        byte[] buf = new byte[4096];
+        try (InputStream stream = in) {
+            int n;
+            while ((n = stream.read(buf)) >= 0) {
+                sink.write(buf, n);
+            }
+        } catch (IOException e) {
+            // Stream closed under us when the process was destroyed
+        }
+    }
+
+    static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+    }
+
+    public void shutdown() {
+        drainers.shutdownNow();
+        timer.shutdownNow();
+    }
+}
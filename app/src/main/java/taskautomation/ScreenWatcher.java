@@ -0,0 +1,372 @@
+package taskautomation;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Waits for the screen to reach a state instead of sleeping a fixed time. Each poll captures a
+// region and reduces it to two signatures:
+//   - a checksum per pixel row, so "did anything change, and how much" is an exact comparison of
+//     one long per row;
+//   - a 64-bit difference hash (dHash) of a 9x8 grayscale downsample, so "does this look like the
+//     state we expect" tolerates anti-aliasing, cursor blinks and small redraws.
+// A wait returns as soon as its condition holds or the timeout passes, whichever comes first.
+// Changes touching at most NOISE of the rows (a blinking caret, a clock tick) are ignored.
+//
+// The pixel, row and hash buffers are kept between polls and only grow, so a poll allocates
+// nothing beyond what the capture itself needs; with a Robot that is the BufferedImage
+// createScreenCapture returns, which AWT has no way to fill in place.
+public class ScreenWatcher {
+    static final double NOISE = 0.02;
+    private static final int HASH_W = 9;
+    private static final int HASH_H = 8;
+
+    // Where frames come from: the screen in the app, synthetic frames in the harness
+    public interface Source {
+        Rectangle bounds();
+
+        // Fills pixels with the region's RGB values, row-major, region.width per row
+        void capture(Rectangle region, int[] pixels);
+    }
+
+    public static final class Result {
+        public final boolean matched;
+        public final int polls;
+        public final long nanos;
+
+        Result(boolean matched, int polls, long nanos) {
+            this.matched = matched;
+            this.polls = polls;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return (matched ? "matched" : "timed out") + " after " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + polls + " poll(s)";
+        }
+    }
+
+    private final Source source;
+    private final long pollNanos;
+    private int[] pixels = new int[0];
+    private long[] rows = new long[0];
+    private long[] previous = new long[0];
+    private int height;
+    // Rows captured by mark(), the baseline for the next waitForChange on the same region
+    private long[] baseline = new long[0];
+    private Rectangle marked;
+    private final long[] cells = new long[HASH_W * HASH_H];
+    private final int[] counts = new int[HASH_W * HASH_H];
+
+    public ScreenWatcher(Source source, long pollMs) {
+        this.source = source;
+        this.pollNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, pollMs));
+    }
+
+    public static Source robotSource(Robot robot) {
+        return new Source() {
+            @Override
+            public Rectangle bounds() {
+                return new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
+            }
+
+            @Override
+            public void capture(Rectangle region, int[] pixels) {
+                BufferedImage image = robot.createScreenCapture(region);
+                if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB) {
+                    image.getRaster().getDataElements(0, 0, region.width, region.height, pixels);
+                } else {
+                    image.getRGB(0, 0, region.width, region.height, pixels, 0, region.width);
+                }
+            }
+        };
+    }
+
+    // Null means the whole screen; anything outside the screen is clipped off
+    public Rectangle clip(Rectangle region) {
+        Rectangle bounds = source.bounds();
+        Rectangle r = region == null ? bounds : region.intersection(bounds);
+        if (r.isEmpty()) {
+            throw new IllegalArgumentException("region " + region + " is off screen " + bounds);
+        }
+        return r;
+    }
+
+    // Captures the region as it is now, before the step that should change it, so the next
+    // waitForChange also sees a change that finished before it started polling
+    public void mark(Rectangle region) {
+        Rectangle r = clip(region);
+        capture(r);
+        if (baseline.length < r.height) {
+            baseline = new long[r.height];
+        }
+        System.arraycopy(rows, 0, baseline, 0, r.height);
+        marked = r;
+    }
+
+    // Until more than NOISE of the rows differ from the marked baseline, or without one from the
+    // first capture
+    public Result waitForChange(Rectangle region, long timeoutMs) throws InterruptedException {
+        Rectangle r = clip(region);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        boolean hasBaseline = r.equals(marked);
+        marked = null;
+        capture(r);
+        int polls = 1;
+        if (hasBaseline) {
+            System.arraycopy(baseline, 0, previous, 0, r.height);
+            if (changedRows() > NOISE * r.height) {
+                return new Result(true, polls, System.nanoTime() - start);
+            }
+        } else {
+            swapRows();
+        }
+        while (sleepUntilNextPoll(deadline)) {
+            capture(r);
+            polls++;
+            if (changedRows() > NOISE * r.height) {
+                return new Result(true, polls, System.nanoTime() - start);
+            }
+        }
+        return new Result(false, polls, System.nanoTime() - start);
+    }
+
+    // Until no more than NOISE of the rows have changed between polls for quietMs
+    public Result waitForStill(Rectangle region, long quietMs, long timeoutMs) throws InterruptedException {
+        Rectangle r = clip(region);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long quiet = TimeUnit.MILLISECONDS.toNanos(quietMs);
+        capture(r);
+        swapRows();
+        long stillSince = System.nanoTime();
+        int polls = 1;
+        while (sleepUntilNextPoll(deadline)) {
+            capture(r);
+            polls++;
+            long now = System.nanoTime();
+            if (changedRows() > NOISE * r.height) {
+                stillSince = now;
+            } else if (now - stillSince >= quiet) {
+                return new Result(true, polls, now - start);
+            }
+            swapRows();
+        }
+        return new Result(false, polls, System.nanoTime() - start);
+    }
+
+    // Until the region's hash is within maxDistance bits of expected (see hash())
+    public Result waitForMatch(Rectangle region, long expected, int maxDistance, long timeoutMs) throws InterruptedException {
+        Rectangle r = clip(region);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        int polls = 0;
+        do {
+            capture(r);
+            polls++;
+            if (Long.bitCount(dHash(r.width, r.height) ^ expected) <= maxDistance) {
+                return new Result(true, polls, System.nanoTime() - start);
+            }
+        } while (sleepUntilNextPoll(deadline));
+        return new Result(false, polls, System.nanoTime() - start);
+    }
+
+    // Perceptual hash of what the region shows now, for waitForMatch
+    public long hash(Rectangle region) {
+        Rectangle r = clip(region);
+        capture(r);
+        return dHash(r.width, r.height);
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private void capture(Rectangle r) {
+        int n = r.width * r.height;
+        if (pixels.length < n) {
+            pixels = new int[n];
+        }
+        if (rows.length < r.height) {
+            rows = new long[r.height];
+            previous = new long[r.height];
+        }
+        source.capture(r, pixels);
+        // FNV-1a over the RGB of each row, in four interleaved lanes so the multiplies don't wait
+        // on each other
+        for (int y = 0; y < r.height; y++) {
+            int i = y * r.width;
+            int end = i + r.width;
+            long h0 = 0xcbf29ce484222325L, h1 = h0 + 1, h2 = h0 + 2, h3 = h0 + 3;
+            for (; i + 3 < end; i += 4) {
+                h0 = (h0 ^ (pixels[i] & 0xFFFFFF)) * 0x100000001b3L;
+                h1 = (h1 ^ (pixels[i + 1] & 0xFFFFFF)) * 0x100000001b3L;
+                h2 = (h2 ^ (pixels[i + 2] & 0xFFFFFF)) * 0x100000001b3L;
+                h3 = (h3 ^ (pixels[i + 3] & 0xFFFFFF)) * 0x100000001b3L;
+            }
+            for (; i < end; i++) {
+                h0 = (h0 ^ (pixels[i] & 0xFFFFFF)) * 0x100000001b3L;
+            }
+            rows[y] = h0 ^ Long.rotateLeft(h1, 16) ^ Long.rotateLeft(h2, 32) ^ Long.rotateLeft(h3, 48);
+        }
+        height = r.height;
+    }
+
+    private void swapRows() {
+        long[] t = previous;
+        previous = rows;
+        rows = t;
+    }
+
+    private int changedRows() {
+        int changed = 0;
+        for (int y = 0; y < height; y++) {
+            if (rows[y] != previous[y]) changed++;
+        }
+        return changed;
+    }
+
+    // Block-average luma on a 9x8 grid, sampling every few pixels, then one bit per horizontally
+    // adjacent pair: set when the left cell is brighter
+    private long dHash(int w, int h) {
+        Arrays.fill(cells, 0);
+        Arrays.fill(counts, 0);
+        int step = Math.max(1, Math.min(w / (HASH_W * 8), h / (HASH_H * 8)));
+        for (int y = 0; y < h; y += step) {
+            int cy = y * HASH_H / h;
+            int row = y * w;
+            for (int x = 0; x < w; x += step) {
+                int p = pixels[row + x];
+                int luma = (((p >> 16) & 0xFF) * 77 + ((p >> 8) & 0xFF) * 150 + (p & 0xFF) * 29) >> 8;
+                int cell = cy * HASH_W + x * HASH_W / w;
+                cells[cell] += luma;
+                counts[cell]++;
+            }
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_H; y++) {
+            for (int x = 0; x < HASH_W - 1; x++) {
+                int a = y * HASH_W + x;
+                // Compare averages without dividing: l1/c1 > l2/c2  <=>  l1*c2 > l2*c1
+                hash = (hash << 1) | (cells[a] * counts[a + 1] > cells[a + 1] * counts[a] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private boolean sleepUntilNextPoll(long deadline) throws InterruptedException {
+        long wait = Math.min(pollNanos, deadline - System.nanoTime());
+        if (wait <= 0) {
+            return false;
+        }
+        TimeUnit.NANOSECONDS.sleep(wait);
+        return true;
+    }
+
+    // Synthetic 1280x720 desktop: a window is drawn progressively from appearMs, finishing at
+    // settleMs, with a caret blinking every 500 ms throughout
+    static final class SyntheticScreen implements Source {
+        private final Rectangle bounds = new Rectangle(1280, 720);
+        private final Rectangle window = new Rectangle(200, 120, 800, 480);
+        private final long startNanos = System.nanoTime();
+        private final long appearMs;
+        private final long settleMs;
+        private final int[] background;
+
+        SyntheticScreen(long appearMs, long settleMs) {
+            this.appearMs = appearMs;
+            this.settleMs = settleMs;
+            background = new int[bounds.width * bounds.height];
+            Random rand = new Random(7);
+            for (int i = 0; i < background.length; i++) {
+                int y = i / bounds.width;
+                background[i] = (0x20 + y / 12) << 8 | 0x40 + rand.nextInt(4);
+            }
+        }
+
+        @Override
+        public Rectangle bounds() {
+            return bounds;
+        }
+
+        @Override
+        public void capture(Rectangle region, int[] pixels) {
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            // Fraction of the window's rows drawn so far
+            double drawn = ms < appearMs ? 0 : ms >= settleMs ? 1 : (double) (ms - appearMs) / (settleMs - appearMs);
+            int windowRows = (int) (window.height * drawn);
+            boolean caret = (ms / 500) % 2 == 0;
+            for (int y = 0; y < region.height; y++) {
+                int sy = region.y + y;
+                for (int x = 0; x < region.width; x++) {
+                    int sx = region.x + x;
+                    int p = background[sy * bounds.width + sx];
+                    if (window.contains(sx, sy) && sy - window.y < windowRows) {
+                        p = sy - window.y < 30 ? 0x2050A0 : ((sx / 8 + sy / 16) % 7 == 0 ? 0x303030 : 0xF4F4F4);
+                    }
+                    if (caret && sx >= 40 && sx < 42 && sy >= 680 && sy < 692) {
+                        p = 0xFFFFFF;
+                    }
+                    pixels[y * region.width + x] = p;
+                }
+            }
+        }
+    }
+
+    // Headless harness on synthetic frames: how soon each wait notices a window that appears at
+    // 300 ms and finishes drawing at 450 ms, against the fixed 1000 ms delay it replaces. Exits
+    // with status 1 if any wait ends the wrong way or outside the window it should end in.
+    //   java taskautomation.ScreenWatcher [pollMs]
+    public static void main(String[] args) throws Exception {
+        long pollMs = args.length > 0 ? Long.parseLong(args[0]) : 15;
+        // Room for scheduling noise on top of the frames themselves
+        long slackMs = 4 * pollMs + 150;
+        java.util.List<String> failures = new ArrayList<>();
+        System.out.println("window appears at 300 ms, settles at 450 ms; caret blinks throughout");
+
+        long start = System.nanoTime();
+        ScreenWatcher watcher = new ScreenWatcher(new SyntheticScreen(300, 450), pollMs);
+        expect(failures, "wait change:              ", watcher.waitForChange(null, 3000), true, 250, 450 + slackMs);
+        expect(failures, "then wait still 100 ms:   ", watcher.waitForStill(null, 100, 3000), true, 0, 3000);
+        long settledMs = (System.nanoTime() - start) / 1_000_000;
+        if (settledMs < 450 || settledMs > 550 + slackMs) {
+            failures.add("wait still: window was still after " + settledMs + " ms, expected 450-" + (550 + slackMs) + " ms");
+        }
+
+        SyntheticScreen done = new SyntheticScreen(0, 0);
+        long expected = new ScreenWatcher(done, pollMs).hash(null);
+        watcher = new ScreenWatcher(new SyntheticScreen(300, 450), pollMs);
+        expect(failures, "wait match (<= 2 bits):   ", watcher.waitForMatch(null, expected, 2, 3000), true, 300, 450 + slackMs);
+        watcher = new ScreenWatcher(new SyntheticScreen(100_000, 100_000), pollMs);
+        expect(failures, "no window, wait change:   ", watcher.waitForChange(null, 500), false, 500, 500 + slackMs);
+        // The window is done before the wait starts: only a baseline from before the launch sees it
+        watcher = new ScreenWatcher(new SyntheticScreen(50, 100), pollMs);
+        watcher.mark(null);
+        Thread.sleep(200);
+        expect(failures, "drawn early, marked:      ", watcher.waitForChange(null, 500), true, 0, slackMs);
+        watcher = new ScreenWatcher(new SyntheticScreen(50, 100), pollMs);
+        Thread.sleep(200);
+        expect(failures, "drawn early, unmarked:    ", watcher.waitForChange(null, 500), false, 500, 500 + slackMs);
+
+        if (!failures.isEmpty()) {
+            for (String failure : failures) {
+                System.err.println("FAIL " + failure);
+            }
+            System.exit(1);
+        }
+    }
+
+    private static void expect(java.util.List<String> failures, String label, Result result, boolean matched, long minMs, long maxMs) {
+        System.out.println(label + result);
+        long ms = result.nanos / 1_000_000;
+        if (result.matched != matched) {
+            failures.add(label.trim() + " " + result + ", expected it to " + (matched ? "match" : "time out"));
+        } else if (ms < minMs || ms > maxMs) {
+            failures.add(label.trim() + " " + result + ", expected between " + minMs + " and " + maxMs + " ms");
+        }
+    }
+}
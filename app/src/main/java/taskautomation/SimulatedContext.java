@@ -0,0 +1,313 @@
+package taskautomation;
+
+import java.awt.event.KeyEvent;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// MacroContext that drives nothing. Key presses, launches, runs and pauses are recorded as events
+// against a virtual clock instead of a Robot, real processes and sleeps, so macros run as fast as
+// the plan interpreter allows, on machines with no display and none of the target programs.
+//
+// Typing is expanded into the key events the real TextInjector would send, and the clock advances
+// by the time that strategy would take (50 ms per key for CLASSIC, the target gap for ADAPTIVE,
+// the settle delay for CLIPBOARD). Launches complete immediately with exit code 0; run steps take
+// setRunMillis of virtual time and exit with setExitCode. Screen waits succeed after their quiet
+// time (or at once for "wait change"), since nothing on a simulated screen ever needs to settle.
+//
+// Every event takes the context lock, so the log has one total order. With a single worker it is
+// fully deterministic. With several, the interleaving follows real scheduling, and the context
+// checks the invariant that matters: keys pressed by one task are never interleaved with another
+// task's, and nothing is released that wasn't pressed. Violations are counted, not thrown.
+//
+// setRealtime(true) makes each call also sleep for the virtual time it took, for measuring how
+// steps overlap in wall-clock time (workflows, the task engine) without the real programs.
+public class SimulatedContext implements MacroContext {
+    public enum Kind { LAUNCH, RUN, PAUSE, KEY_PRESS, KEY_RELEASE, PASTE, SCREEN, STEP }
+
+    public static final class Event {
+        public final long seq;
+        public final long virtualNanos;
+        public final int task;
+        public final Kind kind;
+        public final int keyCode;
+        public final String detail;
+
+        Event(long seq, long virtualNanos, int task, Kind kind, int keyCode, String detail) {
+            this.seq = seq;
+            this.virtualNanos = virtualNanos;
+            this.task = task;
+            this.kind = kind;
+            this.keyCode = keyCode;
+            this.detail = detail;
+        }
+
+        @Override
+        public String toString() {
+            String what = kind == Kind.KEY_PRESS || kind == Kind.KEY_RELEASE ? KeyEvent.getKeyText(keyCode) : detail;
+            return String.format("%6d %12.3f ms  task %-4d %-11s %s", seq, virtualNanos / 1e6, task, kind, what);
+        }
+    }
+
+    private static final int MAX_VIOLATIONS_KEPT = 20;
+
+    private final Object inputLock = new Object();
+    private final TextInjector typingModel = new TextInjector(new TextInjector.Keyboard() {
+        @Override
+        public void keyPress(int keyCode) {
+        }
+
+        @Override
+        public void keyRelease(int keyCode) {
+        }
+    });
+    private final ThreadLocal<long[]> stepClock = ThreadLocal.withInitial(() -> new long[1]);
+    private final int maxEvents;
+    private final List<Event> events = new ArrayList<>();
+    private final Map<Integer, Integer> held = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+    private long clock;
+    private long seq;
+    private long keyEvents;
+    private long droppedEvents;
+    private long violationCount;
+    private int heldBy;
+    private volatile long runMillis = 50;
+    private volatile int exitCode;
+    private volatile boolean realtime;
+    private volatile TaskMetrics metrics;
+
+    // Keeps up to maxEvents events (0 = count only); the clock and the checks cover every event
+    public SimulatedContext(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    public void setRunMillis(long runMillis) {
+        this.runMillis = runMillis;
+    }
+
+    public void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public void setRealtime(boolean realtime) {
+        this.realtime = realtime;
+    }
+
+    public void setMetrics(TaskMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ProcessLauncher.Launch launch(String[] command) throws Exception {
+        String joined = String.join(" ", command);
+        record(Kind.LAUNCH, 0, joined, 0);
+        ProcessLauncher.Result result = new ProcessLauncher.Result(joined, 0, 0, false, true, "", "");
+        return new ProcessLauncher.Launch(null, joined, CompletableFuture.completedFuture(result));
+    }
+
+    @Override
+    public ProcessLauncher.Result run(String[] command, long timeoutMs) throws Exception {
+        String joined = String.join(" ", command);
+        long ms = runMillis;
+        boolean timedOut = timeoutMs > 0 && ms > timeoutMs;
+        long elapsed = TimeUnit.MILLISECONDS.toNanos(timedOut ? timeoutMs : ms);
+        record(Kind.RUN, 0, joined, elapsed);
+        elapse(elapsed);
+        return new ProcessLauncher.Result(joined, timedOut ? -1 : exitCode, elapsed, timedOut, false, "", "");
+    }
+
+    @Override
+    public void pause(int ms) throws InterruptedException {
+        checkInterrupted();
+        record(Kind.PAUSE, 0, ms + " ms", TimeUnit.MILLISECONDS.toNanos(ms));
+        elapse(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Override
+    public void type(String text, TextInjector.Strategy strategy) throws InterruptedException {
+        checkInterrupted();
+        strategy = typingModel.choose(text, strategy);
+        if (strategy == TextInjector.Strategy.CLIPBOARD) {
+            record(Kind.PASTE, 0, text.length() + " chars", 0);
+            key(true, KeyEvent.VK_CONTROL, 0);
+            key(true, KeyEvent.VK_V, 0);
+            key(false, KeyEvent.VK_V, 0);
+            key(false, KeyEvent.VK_CONTROL, TimeUnit.MILLISECONDS.toNanos(TextInjector.PASTE_SETTLE_MS));
+            return;
+        }
+        boolean classic = strategy == TextInjector.Strategy.CLASSIC;
+        long gap = TimeUnit.MILLISECONDS.toNanos(classic ? TextInjector.CLASSIC_DELAY_MS : typingModel.getTargetDelayMs());
+        long settle = TimeUnit.MILLISECONDS.toNanos(typingModel.getNewlineSettleMs());
+        boolean shiftDown = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!TextInjector.isTypable(c)) {
+                if (classic) {
+                    record(Kind.PAUSE, 0, "untypable char", gap);
+                    elapse(gap);
+                }
+                continue;
+            }
+            boolean shift = TextInjector.needsShift(c);
+            // CLASSIC wraps every shifted key; ADAPTIVE holds shift across a run of them
+            if (classic || shift != shiftDown) {
+                if (shift) key(true, KeyEvent.VK_SHIFT, 0);
+                else if (shiftDown) key(false, KeyEvent.VK_SHIFT, 0);
+                shiftDown = shift;
+            }
+            key(true, TextInjector.keyCode(c), 0);
+            if (classic && shift) {
+                key(false, TextInjector.keyCode(c), 0);
+                key(false, KeyEvent.VK_SHIFT, gap);
+                shiftDown = false;
+            } else {
+                key(false, TextInjector.keyCode(c), !classic && c == '\n' ? settle : gap);
+            }
+        }
+        if (shiftDown) {
+            key(false, KeyEvent.VK_SHIFT, 0);
+        }
+    }
+
+    @Override
+    public void chord(int[] keyCodes) throws InterruptedException {
+        checkInterrupted();
+        for (int keyCode : keyCodes) {
+            key(true, keyCode, 0);
+        }
+        for (int i = keyCodes.length - 1; i >= 0; i--) {
+            key(false, keyCodes[i], 0);
+        }
+    }
+
+    @Override
+    public boolean waitForScreen(int[] region, int quietMs, int timeoutMs) throws InterruptedException {
+        checkInterrupted();
+        long nanos = TimeUnit.MILLISECONDS.toNanos(Math.min(quietMs, timeoutMs));
+        record(Kind.SCREEN, 0, quietMs == 0 ? "change" : "still " + quietMs + " ms", nanos);
+        elapse(nanos);
+        return true;
+    }
+
+    // Steps get their virtual duration, not the real time the interpreter took
+    @Override
+    public void stepFinished(MacroPlan plan, int step, long nanos) {
+        long[] accumulated = stepClock.get();
+        long virtual = accumulated[0];
+        accumulated[0] = 0;
+        String label = plan.getStepLabel(step);
+        record(Kind.STEP, 0, label, 0);
+        TaskEngine.TaskHandle task = TaskEngine.current();
+        if (task != null) {
+            task.recordStep(label, virtual);
+        }
+        TaskMetrics m = metrics;
+        if (m != null) {
+            m.recordStep(plan.getName(), label, virtual);
+        }
+    }
+
+    @Override
+    public Object inputLock() {
+        return inputLock;
+    }
+
+    public synchronized long getVirtualNanos() {
+        return clock;
+    }
+
+    public synchronized long getEventCount() {
+        return seq;
+    }
+
+    public synchronized long getKeyEventCount() {
+        return keyEvents;
+    }
+
+    public synchronized long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    public synchronized List<Event> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized long getViolationCount() {
+        return violationCount;
+    }
+
+    // The first few violations, as messages
+    public synchronized List<String> getViolations() {
+        return new ArrayList<>(violations);
+    }
+
+    public synchronized void reset() {
+        events.clear();
+        held.clear();
+        violations.clear();
+        clock = seq = keyEvents = droppedEvents = violationCount = 0;
+        heldBy = 0;
+    }
+
+    private void key(boolean press, int keyCode, long advanceNanos) throws InterruptedException {
+        record(press ? Kind.KEY_PRESS : Kind.KEY_RELEASE, keyCode, null, advanceNanos);
+        elapse(advanceNanos);
+    }
+
+    // Outside the lock, so realtime sleeps on different threads overlap
+    private void elapse(long nanos) throws InterruptedException {
+        if (realtime && nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private synchronized void record(Kind kind, int keyCode, String detail, long advanceNanos) {
+        TaskEngine.TaskHandle current = TaskEngine.current();
+        int task = current == null ? 0 : current.getId();
+        if (kind == Kind.KEY_PRESS || kind == Kind.KEY_RELEASE) {
+            keyEvents++;
+            checkKey(kind == Kind.KEY_PRESS, keyCode, task);
+        }
+        long n = ++seq;
+        if (events.size() < maxEvents) {
+            events.add(new Event(n, clock, task, kind, keyCode, detail));
+        } else {
+            droppedEvents++;
+        }
+        clock += advanceNanos;
+        stepClock.get()[0] += advanceNanos;
+    }
+
+    private void checkKey(boolean press, int keyCode, int task) {
+        if (press) {
+            if (!held.isEmpty() && heldBy != task) {
+                violation("task " + task + " pressed " + KeyEvent.getKeyText(keyCode) + " while task " + heldBy + " holds " + held.keySet());
+            }
+            held.merge(keyCode, 1, Integer::sum);
+            heldBy = task;
+        } else {
+            Integer count = held.get(keyCode);
+            if (count == null) {
+                violation("task " + task + " released " + KeyEvent.getKeyText(keyCode) + " without pressing it");
+            } else if (count == 1) {
+                held.remove(keyCode);
+            } else {
+                held.put(keyCode, count - 1);
+            }
+        }
+    }
+
+    private void violation(String message) {
+        violationCount++;
+        if (violations.size() < MAX_VIOLATIONS_KEPT) {
+            violations.add("event " + (seq + 1) + ": " + message);
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package taskautomation;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// One running app per user. The first instance takes an exclusive lock on instance.lock (holding
+// its pid) in the instance directory and serves the control protocol on control.sock, a Unix
+// domain socket next to it. A later `TaskAutomation --task X` finds the lock taken, forwards
+// "task X" over the socket and exits as soon as the running instance has accepted it, so hotkeys
+// and scripts pay for a small JVM start instead of a Robot, the look and feel and the whole frame.
+//
+// The lock goes away with the process, however it ends; a socket file left by a crash is removed
+// by the next owner before it binds. A forwarder that finds the lock held but nothing listening
+// yet (the owner is still starting) keeps retrying for CONNECT_PATIENCE_MS.
+//
+// Directory: -Dtaskautomation.instance.dir, default <tmpdir>/taskautomation-<user>.
+public class SingleInstance {
+    private static final String LOCK_FILE = "instance.lock";
+    private static final String SOCKET_FILE = "control.sock";
+    private static final long CONNECT_PATIENCE_MS = 5000;
+    private static final long CONNECT_RETRY_MS = 20;
+
+    private final Path dir;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private volatile ControlServer server;
+
+    private SingleInstance(Path dir, FileChannel lockChannel, FileLock lock) {
+        this.dir = dir;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    public static Path directory() {
+        String dir = System.getProperty("taskautomation.instance.dir");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "taskautomation-" + System.getProperty("user.name"));
+    }
+
+    // This process becomes the instance, or null if another one already is
+    public static SingleInstance acquire(Path dir) throws IOException {
+        // Private to the user where the file system allows it: whoever can reach the socket can type
+        try {
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(dir);
+        }
+        checkPrivate(dir);
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            return null;
+        }
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap((ProcessHandle.current().pid() + "\n").getBytes(StandardCharsets.UTF_8)));
+        channel.force(false);
+        return new SingleInstance(dir, channel, lock);
+    }
+
+    // createDirectories leaves an existing directory as it is, and the default one lives in the shared
+    // temp directory: another user could have made it first, or opened it up, and would then own
+    // or reach the socket
+    private static void checkPrivate(Path dir) throws IOException {
+        PosixFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(dir, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        if (!attributes.isDirectory()) {
+            throw new IOException(dir + " is not a directory");
+        }
+        UserPrincipal me = dir.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!attributes.owner().equals(me)) {
+            throw new IOException(dir + " is owned by " + attributes.owner().getName() + ", not " + me.getName());
+        }
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        if (!EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE).containsAll(permissions)) {
+            throw new IOException(dir + " is accessible to other users (" + PosixFilePermissions.toString(permissions) + ")");
+        }
+    }
+
+    // Starts answering forwarded requests; the socket file is removed again on exit
+    public ControlServer serve(ControlServer.Admission admission, ControlServer.Dispatcher dispatcher) throws IOException {
+        Path socket = dir.resolve(SOCKET_FILE);
+        Files.deleteIfExists(socket);
+        server = new ControlServer(UnixDomainSocketAddress.of(socket), admission, dispatcher);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "instance-close"));
+        return server;
+    }
+
+    public void close() {
+        ControlServer s = server;
+        if (s != null) {
+            s.close();
+        }
+        try {
+            if (s != null) {
+                Files.deleteIfExists(dir.resolve(SOCKET_FILE));
+            }
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            // Exiting anyway; the OS drops the lock with the process
+        }
+    }
+
+    public static final class Handoff {
+        public final String status;
+        public final String detail;
+        // Connect to "accepted", and to the final reply (the same unless waiting for the result)
+        public final long acceptedNanos;
+        public final long totalNanos;
+
+        Handoff(String status, String detail, long acceptedNanos, long totalNanos) {
+            this.status = status;
+            this.detail = detail;
+            this.acceptedNanos = acceptedNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public boolean ok() {
+            return status.equals("accepted") || status.equals("completed") || status.equals("pong");
+        }
+    }
+
+    // Sends one request line ("task X", "voice X" or "ping") to the running instance and returns its
+    // reply: the acknowledgement, or with waitForResult the task's result
+    public static Handoff forward(Path dir, String request, boolean waitForResult) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (SocketChannel channel = connect(dir.resolve(SOCKET_FILE))) {
+            channel.write(ByteBuffer.wrap((request + "\n").getBytes(StandardCharsets.UTF_8)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            long accepted = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                // "<id> <status> [detail]"
+                String[] parts = line.split(" ", 3);
+                String status = parts.length > 1 ? parts[1] : "";
+                String detail = parts.length > 2 ? parts[2] : "";
+                long now = System.nanoTime() - start;
+                if (status.equals("accepted")) {
+                    accepted = now;
+                    if (!waitForResult) {
+                        return new Handoff(status, detail, accepted, now);
+                    }
+                    continue;
+                }
+                return new Handoff(status, detail, accepted == 0 ? now : accepted, now);
+            }
+            throw new EOFException("the running instance closed the connection");
+        }
+    }
+
+    private static SocketChannel connect(Path socket) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_PATIENCE_MS);
+        while (true) {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(UnixDomainSocketAddress.of(socket));
+                return channel;
+            } catch (IOException e) {
+                channel.close();
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("no instance is answering on " + socket + ": " + e.getMessage(), e);
+                }
+                Thread.sleep(CONNECT_RETRY_MS);
+            }
+        }
+    }
+
+    // The second-instance path of TaskAutomation.main: forward, report, and return the exit code
+    static int handOff(Path dir, String kind, String argument, boolean waitForResult) {
+        String request = kind == null ? "ping" : kind + " " + argument;
+        try {
+            Handoff h = forward(dir, request, waitForResult);
+            String pid = readPid(dir);
+            if (kind == null) {
+                System.out.println("Task Automation is already running" + (pid == null ? "" : " (pid " + pid + ")"));
+            } else {
+                System.out.printf("[instance] %s '%s': %s%s (hand-off %.1f ms)%n",
+                    kind, argument, h.status, h.detail.isEmpty() ? "" : " " + h.detail, h.acceptedNanos / 1e6);
+            }
+            return h.ok() ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("[instance] " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            return 1;
+        }
+    }
+
+    private static String readPid(Path dir) {
+        try {
+            return new String(Files.readAllBytes(dir.resolve(LOCK_FILE)), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Hand-off latency harness, no GUI:
+    //   java taskautomation.SingleInstance [--requests 2000] [--launches 10]
+    // Serves the macro library on a SimulatedContext from a temporary instance directory, then
+    // measures the forward round trip in-process and the wall time of complete second-instance
+    // launches (`TaskAutomation --task ...` in a fresh JVM) against a JVM that does nothing.
+    public static void main(String[] args) throws Exception {
+        int requests = 2000;
+        int launches = 10;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--requests": requests = Integer.parseInt(args[++i]); break;
+                    case "--launches": launches = Integer.parseInt(args[++i]); break;
+                    case "--noop": return;
+                    default: throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("instance: " + e.getMessage());
+            System.err.println("usage: java taskautomation.SingleInstance [--requests 2000] [--launches 10]");
+            System.exit(2);
+        }
+
+        Path dir = Files.createTempDirectory("taskautomation-instance");
+        SingleInstance owner = acquire(dir);
+        MacroLibrary library = new MacroLibrary();
+        TaskEngine engine = new TaskEngine(4, 64);
+        owner.serve(new ControlServer.Admission(32), ControlServer.forLibrary(library, engine, new SimulatedContext(0)));
+
+        LatencyHistogram handoff = new LatencyHistogram();
+        for (int i = 0; i < requests; i++) {
+            Handoff h = forward(dir, "task Open Browser", false);
+            if (!h.ok()) {
+                throw new IllegalStateException("forward failed: " + h.status + " " + h.detail);
+            }
+            handoff.record(h.acceptedNanos);
+        }
+        System.out.printf("in-process hand-off (connect, send, accepted), %d request(s): p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+            requests, handoff.percentile(0.50) / 1e6, handoff.percentile(0.99) / 1e6, handoff.max() / 1e6);
+
+        if (launches > 0) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            String classpath = System.getProperty("java.class.path");
+            LatencyHistogram bare = launchTimes(launches, java, "-cp", classpath, SingleInstance.class.getName(), "--noop");
+            LatencyHistogram second = launchTimes(launches, java, "-Djava.awt.headless=true", "-Dtaskautomation.instance.dir=" + dir,
+                "-cp", classpath, TaskAutomation.class.getName(), "--task", "Open Browser");
+            System.out.printf("empty JVM:                  p50 %.1f ms, max %.1f ms (%d launch(es))%n",
+                bare.percentile(0.50) / 1e6, bare.max() / 1e6, launches);
+            System.out.printf("second instance --task:     p50 %.1f ms, max %.1f ms (%d launch(es))%n",
+                second.percentile(0.50) / 1e6, second.max() / 1e6, launches);
+        }
+        owner.close();
+        engine.shutdown();
+    }
+
+    private static LatencyHistogram launchTimes(int launches, String... command) throws IOException, InterruptedException {
+        LatencyHistogram times = new LatencyHistogram();
+        List<String> cmd = new ArrayList<>(Arrays.asList(command));
+        for (int i = 0; i < launches; i++) {
+            long start = System.nanoTime();
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            int exit = p.waitFor();
+            times.record(System.nanoTime() - start);
+            if (exit != 0) {
+                throw new IllegalStateException(String.join(" ", cmd) + " exited with " + exit);
+            }
+        }
+        return times;
+    }
+}
@@ -0,0 +1,113 @@
+package taskautomation;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Repeatable cold-start measurement: starts the app in a fresh JVM --runs times, each exiting as
+// soon as startup is complete (-Dtaskautomation.startup.exit), and reports time to the first frame
+// and to ready from each run's StartupProfile summary. Needs a display.
+//
+//   java taskautomation.StartupBenchmark [--runs 10] [--report] [-Dname=value ...]
+//
+// -D arguments are passed on to the app, e.g. -Dtaskautomation.particles=200. --report prints the
+// per-phase table of the last run.
+public class StartupBenchmark {
+    private static final Pattern SUMMARY = Pattern.compile("\\[startup] first frame ([0-9.]+) ms, ready ([0-9.]+) ms");
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10;
+        boolean report = false;
+        List<String> properties = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--runs")) {
+                    runs = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--report")) {
+                    report = true;
+                } else if (args[i].startsWith("-D")) {
+                    properties.add(args[i]);
+                } else {
+                    throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+                }
+            }
+            if (runs < 1) {
+                throw new IllegalArgumentException("--runs must be at least 1");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("startup: " + e.getMessage());
+            System.err.println("usage: java taskautomation.StartupBenchmark [--runs 10] [--report] [-Dname=value ...]");
+            System.exit(2);
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("startup: no display; the benchmark measures time to the first painted frame");
+            System.exit(2);
+        }
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        double[] firstFrame = new double[runs];
+        double[] ready = new double[runs];
+        double[] wall = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-Dtaskautomation.startup.exit=true");
+            command.add("-Dtaskautomation.singleInstance=false");
+            command.add("-Dtaskautomation.metrics.interval=0");
+            if (report && run == runs - 1) {
+                command.add("-Dtaskautomation.startup.report=true");
+            }
+            command.addAll(properties);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(TaskAutomation.class.getName());
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            double[] result = null;
+            List<String> output = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    output.add(line);
+                    Matcher m = SUMMARY.matcher(line);
+                    if (m.find()) {
+                        result = new double[]{Double.parseDouble(m.group(1)), Double.parseDouble(m.group(2))};
+                    }
+                }
+            }
+            process.waitFor();
+            wall[run] = (System.nanoTime() - start) / 1e6;
+            if (result == null) {
+                throw new IOException("run " + (run + 1) + " printed no startup summary:\n" + String.join("\n", output));
+            }
+            firstFrame[run] = result[0];
+            ready[run] = result[1];
+            System.out.printf("run %2d: first frame %7.1f ms, ready %7.1f ms, process %7.1f ms%n", run + 1, result[0], result[1], wall[run]);
+            if (report && run == runs - 1) {
+                for (String line : output) {
+                    if (line.startsWith("[startup]")) {
+                        System.out.println(line);
+                    }
+                }
+            }
+        }
+        System.out.println(summary("first frame", firstFrame));
+        System.out.println(summary("ready", ready));
+    }
+
+    private static String summary(String label, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return String.format("%-12s min %7.1f ms, median %7.1f ms, max %7.1f ms (%d run(s))",
+            label, sorted[0], sorted[sorted.length / 2], sorted[sorted.length - 1], sorted.length);
+    }
+}
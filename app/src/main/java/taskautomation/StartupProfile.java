@@ -0,0 +1,89 @@
+package taskautomation;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Timeline of one app start. Each phase is recorded with the thread it ran on, so the report shows
+// what sat on the path to the first frame (main thread, EDT) and what ran beside it in the
+// background. Offsets are from JVM start; the JVM's own boot shows up as the gap before the first
+// phase. The management classes are only loaded when the report is built, after startup.
+//
+// Two milestones are what the startup benchmark tracks: the first frame painted with the window's
+// controls, and ready, when the background stage has finished and every subsystem is up.
+public final class StartupProfile {
+    private static final class Phase {
+        final String name;
+        final String thread;
+        final long start;
+        final long end;
+
+        Phase(String name, String thread, long start, long end) {
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+    private volatile long firstFrameNanos;
+    private volatile long readyNanos;
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void end(String phase, long startNanos) {
+        long now = System.nanoTime();
+        synchronized (phases) {
+            phases.add(new Phase(phase, Thread.currentThread().getName(), startNanos, now));
+        }
+    }
+
+    // Only the first call counts
+    public void firstFrame() {
+        if (firstFrameNanos == 0) {
+            firstFrameNanos = System.nanoTime();
+        }
+    }
+
+    public boolean isFirstFramePainted() {
+        return firstFrameNanos != 0;
+    }
+
+    public void ready() {
+        readyNanos = System.nanoTime();
+    }
+
+    // "[startup] first frame 412.3 ms, ready 780.1 ms after JVM start"; StartupBenchmark parses it
+    public String getSummary() {
+        long jvmStart = jvmStartNanos();
+        return String.format("first frame %.1f ms, ready %.1f ms after JVM start",
+            offset(firstFrameNanos, jvmStart), offset(readyNanos, jvmStart));
+    }
+
+    public List<String> getReport() {
+        long jvmStart = jvmStartNanos();
+        List<Phase> sorted;
+        synchronized (phases) {
+            sorted = new ArrayList<>(phases);
+        }
+        sorted.sort((a, b) -> Long.compare(a.start, b.start));
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-28s %-22s %10s %10s", "phase", "thread", "start ms", "took ms"));
+        for (Phase p : sorted) {
+            lines.add(String.format("%-28s %-22s %10.1f %10.1f", p.name, p.thread, offset(p.start, jvmStart), (p.end - p.start) / 1e6));
+        }
+        return lines;
+    }
+
+    private static double offset(long nanos, long jvmStart) {
+        return nanos == 0 ? Double.NaN : (nanos - jvmStart) / 1e6;
+    }
+
+    private static long jvmStartNanos() {
+        long now = System.nanoTime();
+        return now - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L;
+    }
+}
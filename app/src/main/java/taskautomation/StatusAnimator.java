@@ -0,0 +1,98 @@
+package taskautomation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Fade, shake and pulse write into this state; it is applied to the label once per frame.
+// post() is safe from any thread: bursts within one frame collapse to the last message and
+// only the first post of a frame wakes the clock, so a flood of updates costs one EDT event.
+public class StatusAnimator {
+    private static final long FADE_NANOS = 500_000_000L;
+    private static final long SHAKE_NANOS = 200_000_000L;
+    private static final long PULSE_PERIOD_NANOS = 1_200_000_000L;
+    private static final int SHAKE_AMPLITUDE = 5;
+
+    private final JLabel label;
+    private final AnimationClock clock;
+    private final AtomicReference<Message> pending = new AtomicReference<>();
+    private Color color = new Color(0x00FFFF);
+    private float fade = 1f;
+    private float pulse = 1f;
+    private int shakeOffset;
+    private int appliedAlpha = -1;
+    private Color appliedColor;
+    private int appliedShake;
+
+    public StatusAnimator(JLabel label, AnimationClock clock) {
+        this.label = label;
+        this.clock = clock;
+    }
+
+    public void post(String message, Color color, boolean shake) {
+        if (pending.getAndSet(new Message(message, color, shake)) == null) {
+            clock.requestFrame();
+        }
+    }
+
+    public int getShakeOffset() {
+        return shakeOffset;
+    }
+
+    public void pulse(long now) {
+        // Triangle wave between 0.7 and 1.0
+        double phase = (now % PULSE_PERIOD_NANOS) / (double) PULSE_PERIOD_NANOS;
+        pulse = (float) (0.7 + 0.3 * (1 - Math.abs(2 * phase - 1)));
+    }
+
+    // Frame-end hook; runs on the EDT
+    public void applyFrame() {
+        Message next = pending.getAndSet(null);
+        if (next != null) {
+            label.setText(next.text);
+            color = next.color;
+            fade = 0f;
+            long start = System.nanoTime();
+            clock.start("status-fade", now -> {
+                fade = Math.min(1f, (now - start) / (float) FADE_NANOS);
+                return fade < 1f;
+            });
+            if (next.shake) {
+                clock.start("status-shake", now -> {
+                    long t = now - start;
+                    if (t >= SHAKE_NANOS) {
+                        shakeOffset = 0;
+                        return false;
+                    }
+                    shakeOffset = (int) (SHAKE_AMPLITUDE * Math.sin(t * 2 * Math.PI / SHAKE_NANOS));
+                    return true;
+                });
+            } else {
+                clock.cancel("status-shake");
+                shakeOffset = 0;
+            }
+        }
+        int alpha = Math.round(255 * fade * pulse);
+        if (alpha != appliedAlpha || color != appliedColor) {
+            appliedAlpha = alpha;
+            appliedColor = color;
+            label.setForeground(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+        }
+        if (shakeOffset != appliedShake) {
+            appliedShake = shakeOffset;
+            label.repaint();
+        }
+    }
+
+    private static class Message {
+        final String text;
+        final Color color;
+        final boolean shake;
+
+        Message(String text, Color color, boolean shake) {
+            this.text = text;
+            this.color = color;
+            this.shake = shake;
+        }
+    }
+}
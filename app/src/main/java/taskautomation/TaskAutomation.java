@@ -0,0 +1,993 @@
+package taskautomation;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.sound.sampled.*;
+
+public class TaskAutomation {
+    private static final double VOICE_MATCH_THRESHOLD = 0.75;
+
+    // Held apart so loading TaskAutomation doesn't load AWT: a second launch that only hands its
+    // task to the running instance never needs it
+    private static final class Theme {
+        static final Color CYAN = new Color(0x00FFFF);
+        static final Color MAGENTA = new Color(0xFF00FF);
+        static final Color CARD_FILL = new Color(255, 255, 255, 50);
+        static final BasicStroke GLOW_STROKE = new BasicStroke(2);
+    }
+
+    private JFrame frame;
+    private JComboBox<String> taskComboBox;
+    private JButton startButton;
+    private JButton stopButton;
+    private JButton voiceButton;
+    private JLabel statusLabel;
+    private BackgroundPanel backgroundPanel;
+    private ProcessLauncher processLauncher;
+    private AutomationContext automationContext;
+    private MacroLibrary macroLibrary;
+    private TaskEngine engine;
+    private TaskMetrics metrics;
+    private TaskScheduler scheduler;
+    private volatile boolean isVoiceListening;
+    private VoicePipeline voicePipeline;
+    private Map<String, String> voiceCommands;
+    private final CompletableFuture<CommandIndex<VoiceAction>> voiceIndex = new CompletableFuture<>();
+    private AnimationClock animationClock;
+    private StatusAnimator statusAnimator;
+    private volatile FeedbackSound sound;
+    private final TextInjector.Strategy typingOverride = parseTypingOverride();
+    private final StartupProfile startup;
+    private final Map<JComponent, Font> deferredFonts = new LinkedHashMap<>();
+    // Completes once the background stage has finished and every subsystem is up
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private boolean startupFinishing;
+    // One budget for the TCP control port and the instance socket, below the engine queue's 32 so
+    // GUI-started and scheduled tasks still fit
+    private final ControlServer.Admission controlAdmission =
+        new ControlServer.Admission(Integer.getInteger("taskautomation.control.maxInFlight", 24));
+
+    public TaskAutomation() {
+        this(new StartupProfile());
+    }
+
+    // Startup is staged so the window appears as early as possible. Only what the first frame and
+    // the Start button need runs here on the EDT; the Robot, named fonts, particles, sound, voice
+    // index, JMX and scheduler follow in finishStartup() once the first frame has been painted.
+    // Each phase is timed into the StartupProfile (-Dtaskautomation.startup.report=true logs it).
+    TaskAutomation(StartupProfile startup) {
+        this.startup = startup;
+        long phase = startup.start();
+        // The Robot is created by the background stage, or by the first step that needs it
+        processLauncher = new ProcessLauncher();
+        processLauncher.addListener(this::reportProcessExit);
+        automationContext = new AutomationContext(processLauncher);
+
+        // Load and compile task macros
+        macroLibrary = new MacroLibrary();
+
+        // Initialize task engine
+        engine = new TaskEngine(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), 32);
+        engine.addListener(handle -> SwingUtilities.invokeLater(() -> reportTaskState(handle)));
+
+        // Per-task and per-step latency; JMX registration and the log dump start in the background
+        metrics = new TaskMetrics();
+        engine.addListener(metrics);
+        automationContext.setMetrics(metrics);
+
+        // Every finished run goes to the execution journal (-Dtaskautomation.journal=<dir>|off)
+        ExecutionJournal journal = ExecutionJournal.fromProperties();
+        if (journal != null) {
+            engine.addListener(journal);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "journal-close"));
+        }
+
+        // Initialize voice commands; the index over them and the macros is built in the background
+        voiceCommands = new HashMap<>();
+        voiceCommands.put("open notepad", "notepad");
+        voiceCommands.put("open chrome", "chrome");
+        voiceCommands.put("open explorer", "explorer");
+        voiceCommands.put("open outlook", "outlook");
+        isVoiceListening = false;
+        startup.end("engine and macros", phase);
+
+        // Set system look and feel
+        phase = startup.start();
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        startup.end("look and feel", phase);
+
+        // Set up the main frame
+        phase = startup.start();
+        frame = new JFrame("Task Automation");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(500, 450);
+        frame.setMinimumSize(new Dimension(500, 450));
+        frame.setUndecorated(true);
+        frame.setShape(new RoundRectangle2D.Double(0, 0, 500, 450, 20, 20));
+        frame.setLayout(new BorderLayout());
+
+        // Background panel with radial gradient; the particles are added after the first frame
+        backgroundPanel = new BackgroundPanel(0, 500, 450);
+        backgroundPanel.setOverlayVisible(Boolean.getBoolean("taskautomation.fps"));
+        backgroundPanel.setLayout(new BorderLayout());
+
+        // Glassmorphic card panel
+        JPanel cardPanel = new JPanel() {
+            // Pre-rendered once per size; particle repaints underneath just blit it
+            private BufferedImage cache;
+            private double cacheScale;
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                int w = getWidth();
+                int h = getHeight();
+                double scale = deviceScale(g2d);
+                if (cache == null || cacheScale != scale || cache.getWidth() != (int) Math.ceil(w * scale) || cache.getHeight() != (int) Math.ceil(h * scale)) {
+                    cacheScale = scale;
+                    cache = createSprite(w, h, scale);
+                    Graphics2D c = cache.createGraphics();
+                    c.scale(scale, scale);
+                    c.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    c.setColor(Theme.CARD_FILL);
+                    c.fillRoundRect(0, 0, w, h, 20, 20);
+                    c.setColor(Theme.CYAN);
+                    c.setStroke(Theme.GLOW_STROKE);
+                    c.drawRoundRect(0, 0, w - 1, h - 1, 20, 20);
+                    c.dispose();
+                }
+                g2d.drawImage(cache, 0, 0, w, h, null);
+                // The card paints over the background, so this is the first complete frame
+                if (!startup.isFirstFramePainted()) {
+                    startup.firstFrame();
+                    SwingUtilities.invokeLater(TaskAutomation.this::finishStartup);
+                }
+            }
+        };
+        cardPanel.setOpaque(false);
+        cardPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        cardPanel.setLayout(new BoxLayout(cardPanel, BoxLayout.Y_AXIS));
+        cardPanel.setMaximumSize(new Dimension(400, 350));
+
+        // Title label
+        JLabel titleLabel = new JLabel("Task Automation", SwingConstants.CENTER);
+        deferFont(titleLabel, "Montserrat", Font.BOLD, 28);
+        titleLabel.setForeground(new Color(000000));
+        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        titleLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 20, 0));
+
+        // Task selection
+        JPanel taskPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        taskPanel.setOpaque(false);
+        JLabel taskLabel = new JLabel("Task:");
+        deferFont(taskLabel, "Segoe UI", Font.PLAIN, 16);
+        taskLabel.setForeground(new Color(0x00000));
+        taskComboBox = new JComboBox<>(macroLibrary.names());
+        deferFont(taskComboBox, "Segoe UI", Font.PLAIN, 14);
+        taskComboBox.setBackground(new Color(0x1C2526));
+        taskComboBox.setForeground(new Color(0x00000));
+        taskComboBox.setBorder(BorderFactory.createLineBorder(new Color(0x00FFFF), 2));
+        taskComboBox.setPreferredSize(new Dimension(200, 30));
+        taskPanel.add(taskLabel);
+        taskPanel.add(taskComboBox);
+
+        // Button panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        buttonPanel.setOpaque(false);
+
+        // Start button
+        startButton = new GlowButton("Start Automation", new Color(0x00FFFF));
+        startButton.addActionListener(e -> startAutomation());
+        buttonPanel.add(startButton);
+
+        // Stop button
+        stopButton = new GlowButton("Stop", new Color(0xFF00FF));
+        stopButton.addActionListener(e -> stopAutomation());
+        buttonPanel.add(stopButton);
+
+        // Voice button
+        voiceButton = new GlowButton("Start Voice", new Color(0x00FFFF));
+        voiceButton.addActionListener(e -> toggleVoiceControl());
+        buttonPanel.add(voiceButton);
+
+        // Status label
+        statusLabel = new JLabel("Select a task or use voice", SwingConstants.CENTER) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                // Shake is a paint-time offset so it never fights the layout manager
+                g.translate(statusAnimator == null ? 0 : statusAnimator.getShakeOffset(), 0);
+                super.paintComponent(g);
+            }
+        };
+        deferFont(statusLabel, "Segoe UI", Font.PLAIN, 18);
+        statusLabel.setForeground(new Color(0x00FFFF));
+        statusLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
+        // Full width so the shake offset never clips the centered text
+        statusLabel.setMaximumSize(new Dimension(Integer.MAX_VALUE, statusLabel.getPreferredSize().height));
+
+        // Assemble card
+        cardPanel.add(titleLabel);
+        cardPanel.add(taskPanel);
+        cardPanel.add(buttonPanel);
+        cardPanel.add(statusLabel);
+
+        // Center card in background
+        JPanel centerPanel = new JPanel(new GridBagLayout());
+        centerPanel.setOpaque(false);
+        centerPanel.add(cardPanel);
+
+        backgroundPanel.add(centerPanel, BorderLayout.CENTER);
+        frame.add(backgroundPanel, BorderLayout.CENTER);
+
+        // Make frame draggable
+        FrameDragger dragger = new FrameDragger(frame);
+        frame.addMouseListener(dragger);
+        frame.addMouseMotionListener(dragger);
+
+        // F3 toggles the FPS / frame-time overlay
+        frame.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleFps");
+        frame.getRootPane().getActionMap().put("toggleFps", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                backgroundPanel.setOverlayVisible(!backgroundPanel.isOverlayVisible());
+            }
+        });
+
+        // Every animation runs on one EDT frame clock
+        animationClock = new AnimationClock(60);
+        statusAnimator = new StatusAnimator(statusLabel, animationClock);
+        animationClock.onFrameEnd(statusAnimator::applyFrame);
+        startup.end("build window", phase);
+
+        phase = startup.start();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        frame.revalidate();
+        frame.repaint();
+        startup.end("show window", phase);
+        // The first paint normally starts the second stage; this covers a window that never paints
+        javax.swing.Timer fallback = new javax.swing.Timer(2000, e -> finishStartup());
+        fallback.setRepeats(false);
+        fallback.start();
+
+        // Report macro files that failed to compile
+        for (String error : macroLibrary.getErrors()) {
+            System.err.println("[macros] " + error);
+        }
+        if (!macroLibrary.getErrors().isEmpty()) {
+            showAnimatedStatus("Macro error: " + macroLibrary.getErrors().get(0), new Color(0xFF0000), true);
+        }
+
+        // Pulse status
+        animationClock.start("status-pulse", now -> {
+            statusAnimator.pulse(now);
+            return true;
+        });
+    }
+
+    // Second stage, on the EDT right after the first frame. The particles start here; everything
+    // else runs off the EDT, each piece on its own thread so they overlap.
+    private void finishStartup() {
+        if (startupFinishing) {
+            return;
+        }
+        startupFinishing = true;
+        long phase = startup.start();
+        // -Dtaskautomation.particles=N
+        backgroundPanel.setParticleCount(Integer.getInteger("taskautomation.particles", 15));
+        animationClock.start("particles", now -> {
+            backgroundPanel.step(now);
+            return true;
+        });
+        startup.end("particles", phase);
+
+        CompletableFuture<?>[] stages = {
+            inBackground("robot", () -> {
+                try {
+                    automationContext.prepareRobot();
+                } catch (IllegalStateException e) {
+                    System.err.println("[startup] " + e.getMessage());
+                    showAnimatedStatus(e.getMessage(), new Color(0xFF0000), true);
+                }
+            }),
+            // Looking a family up by name can scan every installed font, so it happens here and the
+            // window switches over from the logical fonts it was first shown with
+            inBackground("fonts", () -> {
+                for (Font font : deferredFonts.values()) {
+                    font.getFamily();
+                }
+                SwingUtilities.invokeLater(this::applyDeferredFonts);
+            }),
+            // Feedback cues are synthesized and the audio line opens on the sound thread
+            // (-Dtaskautomation.sound=on|beep|off); cues before this point are dropped
+            inBackground("sound", () -> {
+                FeedbackSound s = new FeedbackSound();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    if (s.getLatency().count() > 0) {
+                        System.out.println("[sound] " + s.getReport());
+                    }
+                }, "sound-report"));
+                sound = s;
+            }),
+            // Index voice commands and macro aliases once for fuzzy lookup
+            inBackground("voice index", () -> {
+                try {
+                    voiceIndex.complete(buildVoiceIndex());
+                } catch (RuntimeException e) {
+                    voiceIndex.completeExceptionally(e);
+                    throw e;
+                }
+            }),
+            // JMX and the periodic log dump (-Dtaskautomation.metrics.interval=<seconds>, 0 disables it)
+            inBackground("metrics", () -> {
+                metrics.register();
+                metrics.startLogging(Long.getLong("taskautomation.metrics.interval", 60));
+            }),
+            // Macros with "schedule:" headers run from the scheduler's timing wheel; a run due more than
+            // -Dtaskautomation.misfireMs late (default one minute) follows the schedule's misfire policy
+            inBackground("scheduler", () -> {
+                scheduler = new TaskScheduler(this::runScheduled, Long.getLong("taskautomation.misfireMs", 60_000));
+                for (MacroPlan plan : macroLibrary.all()) {
+                    for (String spec : plan.getSchedules()) {
+                        scheduler.schedule(plan.getName(), spec);
+                    }
+                }
+            }),
+        };
+        CompletableFuture.allOf(stages).whenComplete((v, error) -> {
+            startControlServer();
+            startup.ready();
+            System.out.println("[startup] " + startup.getSummary());
+            if (Boolean.getBoolean("taskautomation.startup.report")) {
+                for (String line : startup.getReport()) {
+                    System.out.println("[startup] " + line);
+                }
+            }
+            ready.complete(null);
+            // For StartupBenchmark: one measured start per JVM
+            if (Boolean.getBoolean("taskautomation.startup.exit")) {
+                System.exit(0);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> inBackground(String phase, Runnable work) {
+        return CompletableFuture.runAsync(() -> {
+            long start = startup.start();
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                System.err.println("[startup] " + phase + " failed: " + e);
+            } finally {
+                startup.end(phase, start);
+            }
+        }, r -> {
+            Thread t = new Thread(r, "startup-" + phase.replace(' ', '-'));
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    // Local control endpoint for other tools (-Dtaskautomation.control.port=<port>, loopback only)
+    private void startControlServer() {
+        Integer controlPort = Integer.getInteger("taskautomation.control.port");
+        if (controlPort == null) {
+            return;
+        }
+        try {
+            ControlServer control = new ControlServer(controlPort, controlAdmission, controlDispatcher());
+            System.out.println("[control] listening on 127.0.0.1:" + control.getPort());
+        } catch (IOException e) {
+            System.err.println("[control] could not listen on port " + controlPort + ": " + e.getMessage());
+        }
+    }
+
+    // The window is built with a logical font of the same style and size, and switches to the named
+    // family once the background stage has resolved it
+    private void deferFont(JComponent component, String family, int style, int size) {
+        component.setFont(new Font(Font.SANS_SERIF, style, size));
+        deferredFonts.put(component, new Font(family, style, size));
+    }
+
+    private void applyDeferredFonts() {
+        long phase = startup.start();
+        for (Map.Entry<JComponent, Font> entry : deferredFonts.entrySet()) {
+            entry.getKey().setFont(entry.getValue());
+        }
+        statusLabel.setMaximumSize(new Dimension(Integer.MAX_VALUE, statusLabel.getPreferredSize().height));
+        frame.revalidate();
+        frame.repaint();
+        startup.end("apply fonts", phase);
+    }
+
+    private void startAutomation() {
+        String selectedTask = (String) taskComboBox.getSelectedItem();
+        MacroPlan plan = macroLibrary.get(selectedTask);
+        Workflow workflow = macroLibrary.getWorkflow(selectedTask);
+        if (workflow != null) {
+            runWorkflow(workflow);
+            return;
+        }
+        if (plan == null) {
+            showAnimatedStatus("Unknown task: " + selectedTask, new Color(0xFF0000), true);
+            playSound(FeedbackSound.Cue.ERROR);
+            return;
+        }
+        TextInjector.Strategy typing = typingStrategy(plan);
+        engine.submit(plan.getName(), () -> plan.run(automationContext, typing));
+    }
+
+    // Each step shows up as its own task; the step table and critical path are logged at the end
+    private void runWorkflow(Workflow workflow) {
+        workflow.start(engine, automationContext, this::typingStrategy).completion().thenAccept(run -> {
+            for (String line : run.getReport()) {
+                System.out.println("[workflow] " + line);
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (run.succeeded()) {
+                    showAnimatedStatus(workflow.getName() + " completed successfully!", new Color(0x00FF00), false);
+                    playSound(FeedbackSound.Cue.WIN);
+                } else {
+                    showAnimatedStatus(workflow.getName() + " finished with errors", new Color(0xFF0000), true);
+                    playSound(FeedbackSound.Cue.ERROR);
+                }
+            });
+        });
+    }
+
+    private ControlServer.Dispatcher controlDispatcher() {
+        return new ControlServer.Dispatcher() {
+            @Override
+            public CompletableFuture<ControlServer.Outcome> dispatch(String kind, String argument) {
+                return dispatchControl(kind, argument);
+            }
+
+            @Override
+            public int weight(String kind, String argument) {
+                return controlWeight(kind, argument);
+            }
+        };
+    }
+
+    // Queue slots a control request may take: a workflow's steps can all be queued at once. A voice
+    // command that arrives before the index is built counts as 1; its workflow holds back steps anyway.
+    private int controlWeight(String kind, String argument) {
+        Workflow workflow;
+        if (kind.equals("voice")) {
+            if (!voiceIndex.isDone()) {
+                return 1;
+            }
+            CommandIndex.Match<VoiceAction> match = voiceIndex().best(argument.toLowerCase().trim(), VOICE_MATCH_THRESHOLD);
+            workflow = match == null ? null : match.target.workflow;
+        } else {
+            workflow = macroLibrary.getWorkflow(argument);
+        }
+        return workflow == null ? 1 : workflow.getStepCount();
+    }
+
+    // Called on the control server's selector thread; must not block. The instance socket is served
+    // from the constructor on, so requests that arrive during startup are accepted and run once it
+    // is ready; a task name is still checked at once, as the library is already loaded.
+    private CompletableFuture<ControlServer.Outcome> dispatchControl(String kind, String argument) {
+        if (!ready.isDone()) {
+            if (kind.equals("task") && macroLibrary.getWorkflow(argument) == null && macroLibrary.get(argument) == null) {
+                throw new IllegalArgumentException("unknown task '" + argument + "'");
+            }
+            return ready.thenCompose(v -> {
+                try {
+                    return dispatchControl(kind, argument);
+                } catch (RuntimeException e) {
+                    return CompletableFuture.completedFuture(new ControlServer.Outcome("failed", e.getMessage(), 0));
+                }
+            });
+        }
+        if (kind.equals("voice")) {
+            // Startup is complete, so the index is already built (or failed)
+            CommandIndex.Match<VoiceAction> match = voiceIndex().best(argument.toLowerCase().trim(), VOICE_MATCH_THRESHOLD);
+            if (match == null) {
+                throw new IllegalArgumentException("unknown command '" + argument + "'");
+            }
+            // The reply has to cover every step, not just starting the DAG
+            if (match.target.workflow != null) {
+                return ControlServer.start(match.target.workflow, engine, automationContext, this::typingStrategy);
+            }
+            return ControlServer.submit(engine, match.target.label, match.target.body);
+        }
+        Workflow workflow = macroLibrary.getWorkflow(argument);
+        if (workflow != null) {
+            return ControlServer.start(workflow, engine, automationContext, this::typingStrategy);
+        }
+        MacroPlan plan = macroLibrary.get(argument);
+        if (plan == null) {
+            throw new IllegalArgumentException("unknown task '" + argument + "'");
+        }
+        TextInjector.Strategy typing = typingStrategy(plan);
+        return ControlServer.submit(engine, plan.getName(), () -> plan.run(automationContext, typing));
+    }
+
+    // Called on the scheduler thread; engine.submit never blocks
+    private TaskEngine.TaskHandle runScheduled(String name) {
+        MacroPlan plan = macroLibrary.get(name);
+        if (plan == null) {
+            return null;
+        }
+        return engine.submit(plan.getName(), () -> plan.run(automationContext, typingStrategy(plan)));
+    }
+
+    private void reportTaskState(TaskEngine.TaskHandle handle) {
+        String name = handle.getName();
+        switch (handle.getState()) {
+            case QUEUED:
+                showAnimatedStatus("Queued " + name + engineSummary(), new Color(0x00FFFF), false);
+                playSound(FeedbackSound.Cue.MOVE);
+                break;
+            case RUNNING:
+                showAnimatedStatus("Starting " + name + "..." + engineSummary(), new Color(0x00FFFF), false);
+                break;
+            case COMPLETED:
+                showAnimatedStatus(name + " completed successfully!" + engineSummary(), new Color(0x00FF00), false);
+                playSound(FeedbackSound.Cue.WIN);
+                break;
+            case CANCELLED:
+                showAnimatedStatus(name + " cancelled" + engineSummary(), new Color(0x00FFFF), false);
+                break;
+            case FAILED:
+                showAnimatedStatus("Error in " + name + ": " + handle.getError().getMessage(), new Color(0xFF0000), true);
+                playSound(FeedbackSound.Cue.ERROR);
+                break;
+        }
+    }
+
+    // Attached runs are reported through their task; detached programs only when they fail
+    private void reportProcessExit(ProcessLauncher.Result result) {
+        System.out.println("[process] " + result);
+        if (result.detached && (result.timedOut || result.exitCode != 0)) {
+            showAnimatedStatus(result.toString(), new Color(0xFF0000), true);
+            playSound(FeedbackSound.Cue.ERROR);
+        }
+    }
+
+    private String engineSummary() {
+        int running = engine.runningCount();
+        int queued = engine.queuedCount();
+        if (running == 0 && queued == 0) {
+            return "";
+        }
+        return " (" + running + " running, " + queued + " queued)";
+    }
+
+    private void toggleVoiceControl() {
+        if (isVoiceListening) {
+            isVoiceListening = false;
+            stopVoiceCapture();
+            voiceButton.setText("Start Voice");
+            showAnimatedStatus("Voice control stopped", new Color(0x00FFFF), false);
+            playSound(FeedbackSound.Cue.MOVE);
+        } else {
+            isVoiceListening = true;
+            voiceButton.setText("Stop Voice");
+            showAnimatedStatus("Listening for voice commands...", new Color(0x00FFFF), false);
+            playSound(FeedbackSound.Cue.MOVE);
+            // -Dtaskautomation.voice.source=mic|<file.wav> captures audio; otherwise commands are typed in
+            String source = System.getProperty("taskautomation.voice.source");
+            if (source != null) {
+                startVoiceCapture(source);
+            } else {
+                startVoiceSimulation();
+            }
+        }
+    }
+
+    private void startVoiceCapture(String source) {
+        try {
+            VoicePipeline.Recognizer recognizer = VoicePipeline.recognizerFromProperty();
+            voicePipeline = new VoicePipeline(u -> {
+                String text = recognizer.recognize(u);
+                if (text == null) {
+                    showAnimatedStatus(String.format("Heard %.1f s of speech, no recognizer configured", u.durationSeconds()), new Color(0x00FFFF), false);
+                }
+                return text;
+            }, (text, u) -> handleVoiceCommand(text));
+            if (source.equals("mic")) {
+                voicePipeline.startMicrophone();
+            } else {
+                voicePipeline.startFile(new java.io.File(source), true);
+            }
+        } catch (Exception e) {
+            isVoiceListening = false;
+            voiceButton.setText("Start Voice");
+            showAnimatedStatus("Voice capture failed: " + e.getMessage(), new Color(0xFF0000), true);
+            playSound(FeedbackSound.Cue.ERROR);
+        }
+    }
+
+    private void stopVoiceCapture() {
+        if (voicePipeline == null) {
+            return;
+        }
+        try {
+            voicePipeline.stop();
+            System.out.println("[voice] " + voicePipeline.getStats());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        voicePipeline = null;
+    }
+
+    private void handleVoiceCommand(String voiceInput) {
+        String processedInput = voiceInput.toLowerCase().trim();
+        java.util.List<CommandIndex.Match<VoiceAction>> matches;
+        try {
+            matches = voiceIndex().search(processedInput, 3);
+        } catch (IllegalStateException e) {
+            showAnimatedStatus(e.getMessage(), new Color(0xFF0000), true);
+            playSound(FeedbackSound.Cue.ERROR);
+            return;
+        }
+        if (!matches.isEmpty() && matches.get(0).score >= VOICE_MATCH_THRESHOLD) {
+            VoiceAction action = matches.get(0).target;
+            if (action.workflow != null) {
+                runWorkflow(action.workflow);
+            } else {
+                engine.submit(action.label, action.body);
+            }
+        } else {
+            String suggestion = matches.isEmpty() ? "" : " (did you mean '" + matches.get(0).phrase + "'?)";
+            SwingUtilities.invokeLater(() -> {
+                showAnimatedStatus("Unknown command: " + processedInput + suggestion, new Color(0xFF0000), true);
+                playSound(FeedbackSound.Cue.ERROR);
+            });
+        }
+    }
+
+    private void startVoiceSimulation() {
+        new Thread(() -> {
+            while (isVoiceListening) {
+                String voiceInput = JOptionPane.showInputDialog(frame, "Enter voice command (e.g., 'open notepad'):");
+                if (voiceInput == null || !isVoiceListening) {
+                    break;
+                }
+                handleVoiceCommand(voiceInput);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            if (isVoiceListening) {
+                isVoiceListening = false;
+                SwingUtilities.invokeLater(() -> {
+                    voiceButton.setText("Start Voice");
+                    showAnimatedStatus("Voice control stopped", new Color(0x00FFFF), false);
+                    playSound(FeedbackSound.Cue.MOVE);
+                });
+            }
+        }).start();
+    }
+
+    // Waits for the background build; a failed build becomes a readable error instead of a bare
+    // CompletionException
+    private CommandIndex<VoiceAction> voiceIndex() {
+        try {
+            return voiceIndex.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IllegalStateException("Voice commands unavailable: " + cause, cause);
+        }
+    }
+
+    private CommandIndex<VoiceAction> buildVoiceIndex() {
+        CommandIndex<VoiceAction> index = new CommandIndex<>();
+        for (Map.Entry<String, String> entry : voiceCommands.entrySet()) {
+            String command = entry.getValue();
+            VoiceAction action = new VoiceAction("Open " + command, () -> automationContext.launch(new String[]{command}));
+            index.add(entry.getKey(), action);
+            index.add(command, action);
+        }
+        for (MacroPlan plan : macroLibrary.all()) {
+            VoiceAction action = new VoiceAction(plan.getName(), () -> plan.run(automationContext, typingStrategy(plan)));
+            index.add(plan.getName(), action);
+            for (String alias : plan.getVoiceAliases()) {
+                index.add(alias, action);
+            }
+        }
+        for (Workflow workflow : macroLibrary.allWorkflows()) {
+            VoiceAction action = new VoiceAction(workflow.getName(), null, workflow);
+            index.add(workflow.getName(), action);
+            for (String alias : workflow.getVoiceAliases()) {
+                index.add(alias, action);
+            }
+        }
+        return index.build();
+    }
+
+    private void stopAutomation() {
+        int cancelled = engine.cancelAll();
+        if (cancelled == 0) {
+            showAnimatedStatus("No automation running!", new Color(0xFF0000), true);
+            playSound(FeedbackSound.Cue.ERROR);
+            return;
+        }
+        showAnimatedStatus("Automation stopped (" + cancelled + " cancelled)", new Color(0x00FFFF), false);
+        playSound(FeedbackSound.Cue.MOVE);
+    }
+
+    private TextInjector.Strategy typingStrategy(MacroPlan plan) {
+        return typingOverride != null ? typingOverride : plan.getTyping();
+    }
+
+    // -Dtaskautomation.typing=CLASSIC|ADAPTIVE|CLIPBOARD|AUTO overrides the strategy in every macro.
+    // Read once; a bad value is reported here rather than failing every run.
+    private static TextInjector.Strategy parseTypingOverride() {
+        String override = System.getProperty("taskautomation.typing");
+        if (override == null) {
+            return null;
+        }
+        try {
+            return TextInjector.Strategy.valueOf(override.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("[typing] unknown strategy '" + override + "' in -Dtaskautomation.typing (expected one of "
+                + Arrays.toString(TextInjector.Strategy.values()) + "); using each macro's own");
+            return null;
+        }
+    }
+
+    // Safe to call from any thread; bursts within one frame collapse to the last message
+    private void showAnimatedStatus(String message, Color color, boolean shake) {
+        statusAnimator.post(message, color, shake);
+    }
+
+    // Never blocks; the cue is mixed and played on the sound engine's own thread
+    private void playSound(FeedbackSound.Cue cue) {
+        FeedbackSound s = sound;
+        if (s != null) {
+            s.play(cue);
+        }
+    }
+
+    private static class VoiceAction {
+        final String label;
+        final TaskEngine.TaskBody body;
+        // Set instead of body for workflows, which run as a DAG of tasks
+        final Workflow workflow;
+
+        VoiceAction(String label, TaskEngine.TaskBody body) {
+            this(label, body, null);
+        }
+
+        VoiceAction(String label, TaskEngine.TaskBody body, Workflow workflow) {
+            this.label = label;
+            this.body = body;
+            this.workflow = workflow;
+        }
+    }
+
+    private static double deviceScale(Graphics2D g2d) {
+        return Math.max(1.0, g2d.getTransform().getScaleX());
+    }
+
+    private static BufferedImage createSprite(int w, int h, double scale) {
+        return new BufferedImage(Math.max(1, (int) Math.ceil(w * scale)), Math.max(1, (int) Math.ceil(h * scale)), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private class GlowButton extends JButton {
+        private static final int NORMAL = 0;
+        private static final int HOVER = 1;
+        private static final int PRESSED = 2;
+
+        private Color baseColor;
+        private boolean isPressed;
+        private boolean isHovered;
+        // One pre-rendered image per visual state, rebuilt only when size, scale or content changes
+        private final BufferedImage[] sprites = new BufferedImage[3];
+        private int spriteWidth;
+        private int spriteHeight;
+        private double spriteScale;
+
+        public GlowButton(String text, Color baseColor) {
+            super(text);
+            this.baseColor = baseColor;
+            deferFont(this, "Segoe UI", Font.BOLD, 14);
+            setForeground(new Color(0xFFFFFF));
+            setContentAreaFilled(false);
+            setFocusPainted(false);
+            setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+            setCursor(new Cursor(Cursor.HAND_CURSOR));
+            isPressed = false;
+            isHovered = false;
+
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    isHovered = true;
+                    repaint();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    isHovered = false;
+                    repaint();
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    isPressed = true;
+                    repaint();
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    isPressed = false;
+                    repaint();
+                }
+            });
+            addPropertyChangeListener(e -> {
+                switch (e.getPropertyName()) {
+                    case "text":
+                    case "font":
+                    case "foreground":
+                        Arrays.fill(sprites, null);
+                        break;
+                    default:
+                        break;
+                }
+            });
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g;
+            int w = getWidth();
+            int h = getHeight();
+            double scale = deviceScale(g2d);
+            if (w != spriteWidth || h != spriteHeight || scale != spriteScale) {
+                spriteWidth = w;
+                spriteHeight = h;
+                spriteScale = scale;
+                Arrays.fill(sprites, null);
+            }
+            int state = isPressed ? PRESSED : (isHovered ? HOVER : NORMAL);
+            if (sprites[state] == null) {
+                sprites[state] = renderState(state, w, h, scale);
+            }
+            g2d.drawImage(sprites[state], 0, 0, w, h, null);
+        }
+
+        private BufferedImage renderState(int state, int w, int h, double scale) {
+            BufferedImage sprite = createSprite(w, h, scale);
+            Graphics2D g2d = sprite.createGraphics();
+            g2d.scale(scale, scale);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(state == NORMAL ? baseColor : Theme.MAGENTA);
+            g2d.setStroke(Theme.GLOW_STROKE);
+            g2d.drawRoundRect(0, 0, w - 1, h - 1, 20, 20);
+            g2d.fillRoundRect(0, 0, w, h, 20, 20);
+
+            if (state == PRESSED) {
+                g2d.scale(0.95, 0.95);
+                g2d.translate(w * 0.025, h * 0.025);
+            }
+
+            super.paintComponent(g2d);
+            g2d.dispose();
+            return sprite;
+        }
+    }
+
+    private class FrameDragger extends MouseAdapter {
+        private Point mousePoint;
+        private JFrame frame;
+
+        FrameDragger(JFrame frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            mousePoint = e.getPoint();
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            Point newPoint = e.getLocationOnScreen();
+            frame.setLocation(newPoint.x - mousePoint.x, newPoint.y - mousePoint.y);
+        }
+    }
+
+    //   java taskautomation.TaskAutomation [--task <name> | --voice <command>] [--wait] [--new-instance]
+    // With an instance already running (see SingleInstance), the task or voice command is handed to
+    // it and this process exits once it is accepted, or with --wait once it has finished.
+    // -Dtaskautomation.singleInstance=false or --new-instance always starts a separate app.
+    public static void main(String[] args) {
+        StartupProfile startup = new StartupProfile();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        String kind = null;
+        String argument = null;
+        boolean waitForResult = false;
+        boolean newInstance = !Boolean.parseBoolean(System.getProperty("taskautomation.singleInstance", "true"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--task":
+                case "--voice":
+                    if (i + 1 >= args.length) {
+                        System.err.println("usage: java taskautomation.TaskAutomation [--task <name> | --voice <command>] [--wait] [--new-instance]");
+                        System.exit(2);
+                    }
+                    kind = args[i].substring(2);
+                    argument = args[++i];
+                    break;
+                case "--wait": waitForResult = true; break;
+                case "--new-instance": newInstance = true; break;
+                default:
+                    System.err.println("usage: java taskautomation.TaskAutomation [--task <name> | --voice <command>] [--wait] [--new-instance]");
+                    System.exit(2);
+            }
+        }
+
+        long phase = startup.start();
+        SingleInstance instance = null;
+        if (!newInstance) {
+            try {
+                instance = SingleInstance.acquire(SingleInstance.directory());
+                if (instance == null) {
+                    System.exit(SingleInstance.handOff(SingleInstance.directory(), kind, argument, waitForResult));
+                }
+            } catch (IOException e) {
+                System.err.println("[instance] " + e.getMessage() + "; starting without single-instance mode");
+            }
+        }
+
+        startup.end("single-instance check", phase);
+
+        SingleInstance owner = instance;
+        String initialKind = kind;
+        String initialArgument = argument;
+        SwingUtilities.invokeLater(() -> {
+            try {
+                TaskAutomation app = new TaskAutomation(startup);
+                // Later launches can hand off as soon as the engine and library exist; what they
+                // forward, like the initial request, runs once everything it may need is up
+                if (owner != null) {
+                    app.serveInstance(owner);
+                }
+                app.ready.thenRun(() -> {
+                    if (initialKind != null) {
+                        try {
+                            app.dispatchControl(initialKind, initialArgument);
+                        } catch (RuntimeException e) {
+                            // Runs on a startup thread inside the future, where nothing else would report it
+                            System.err.println("[startup] " + initialKind + " '" + initialArgument + "': " + e);
+                            app.showAnimatedStatus(e.getMessage(), new Color(0xFF0000), true);
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(null, "Failed to start: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    // Later launches forward their --task / --voice here instead of starting another app
+    private void serveInstance(SingleInstance instance) {
+        try {
+            instance.serve(controlAdmission, controlDispatcher());
+        } catch (IOException e) {
+            System.err.println("[instance] could not listen for other launches: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
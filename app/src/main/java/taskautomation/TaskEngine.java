@@ -0,0 +1,286 @@
+package taskautomation;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskEngine {
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    public interface TaskBody {
+        void run() throws Exception;
+    }
+
+    public interface Listener {
+        void onStateChanged(TaskHandle handle);
+    }
+
+    private static final ThreadLocal<TaskHandle> CURRENT = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor executor;
+    private final Set<TaskHandle> active = ConcurrentHashMap.newKeySet();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    public TaskEngine(int workers, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger(1);
+        executor = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread t = new Thread(r, "task-worker-" + threadCount.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Queues a task; if the submission queue is full the handle comes back already FAILED
+    public TaskHandle submit(String name, TaskBody body) {
+        return submit(name, body, null);
+    }
+
+    // As submit, and whenDone is called once the task has finished, after the engine listeners
+    public TaskHandle submit(String name, TaskBody body, Listener whenDone) {
+        TaskHandle handle = enqueue(name, body, whenDone);
+        if (handle.job == null) {
+            fire(handle);
+            handle.error = new RejectedExecutionException("task queue is full");
+            finish(handle, State.FAILED);
+        }
+        return handle;
+    }
+
+    // As submit, but a full queue returns null and nothing is reported, so the caller can hold the
+    // task and try again; any listener event (a task starting or finishing) may mean room
+    public TaskHandle trySubmit(String name, TaskBody body, Listener whenDone) {
+        TaskHandle handle = enqueue(name, body, whenDone);
+        return handle.job == null ? null : handle;
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Leaves job null if the executor rejected it. QUEUED is reported with the handle locked, so a
+    // worker that picks the job up at once can't report RUNNING first.
+    private TaskHandle enqueue(String name, TaskBody body, Listener whenDone) {
+        TaskHandle handle = new TaskHandle(nextId.getAndIncrement(), name);
+        handle.whenDone = whenDone;
+        Job job = new Job(handle, body);
+        synchronized (handle) {
+            handle.job = job;
+            active.add(handle);
+            try {
+                executor.execute(job);
+            } catch (RejectedExecutionException e) {
+                handle.job = null;
+                active.remove(handle);
+                return handle;
+            }
+            fire(handle);
+        }
+        return handle;
+    }
+
+    // The task running on the calling thread, or null outside a task
+    public static TaskHandle current() {
+        return CURRENT.get();
+    }
+
+    // Cancels every queued and running task, interrupting workers; returns how many were cancelled
+    public int cancelAll() {
+        int cancelled = 0;
+        for (TaskHandle handle : active) {
+            if (handle.cancel()) {
+                cancelled++;
+            }
+        }
+        executor.purge();
+        return cancelled;
+    }
+
+    public int runningCount() {
+        int n = 0;
+        for (TaskHandle handle : active) {
+            if (handle.state == State.RUNNING) n++;
+        }
+        return n;
+    }
+
+    public int queuedCount() {
+        int n = 0;
+        for (TaskHandle handle : active) {
+            if (handle.state == State.QUEUED) n++;
+        }
+        return n;
+    }
+
+    public void shutdown() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    private void finish(TaskHandle handle, State state) {
+        synchronized (handle) {
+            if (handle.state == State.COMPLETED || handle.state == State.FAILED || handle.state == State.CANCELLED) {
+                return;
+            }
+            handle.finishedNanos = System.nanoTime();
+            handle.state = state;
+        }
+        active.remove(handle);
+        fire(handle);
+        if (handle.whenDone != null) {
+            handle.whenDone.onStateChanged(handle);
+        }
+    }
+
+    private void fire(TaskHandle handle) {
+        for (Listener listener : listeners) {
+            listener.onStateChanged(handle);
+        }
+    }
+
+    public final class TaskHandle {
+        private final int id;
+        private final String name;
+        private volatile State state = State.QUEUED;
+        private volatile Throwable error;
+        private final long submittedNanos = System.nanoTime();
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private final List<Step> steps = new ArrayList<>();
+        private volatile Job job;
+        private Listener whenDone;
+
+        private TaskHandle(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        // System.nanoTime() stamps; started is 0 if the task never ran, finished is 0 until done
+        public long getSubmittedNanos() {
+            return submittedNanos;
+        }
+
+        public long getStartedNanos() {
+            return startedNanos;
+        }
+
+        public long getFinishedNanos() {
+            return finishedNanos;
+        }
+
+        // Steps are recorded by the worker; once the task has a final state they are dropped
+        public void recordStep(String label, long nanos) {
+            if (isDone()) {
+                return;
+            }
+            synchronized (steps) {
+                steps.add(new Step(label, nanos));
+            }
+        }
+
+        public List<Step> getSteps() {
+            synchronized (steps) {
+                return new ArrayList<>(steps);
+            }
+        }
+
+        public boolean isDone() {
+            return state == State.COMPLETED || state == State.FAILED || state == State.CANCELLED;
+        }
+
+        public boolean cancel() {
+            return job != null && job.cancel(true);
+        }
+    }
+
+    public static final class Step {
+        public final String label;
+        public final long nanos;
+
+        Step(String label, long nanos) {
+            this.label = label;
+            this.nanos = nanos;
+        }
+    }
+
+    private final class Job extends FutureTask<Void> {
+        private final TaskHandle handle;
+
+        Job(TaskHandle handle, TaskBody body) {
+            super(() -> {
+                body.run();
+                return null;
+            });
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            synchronized (handle) {
+                if (isCancelled() || handle.state != State.QUEUED) {
+                    return;
+                }
+                handle.startedNanos = System.nanoTime();
+                handle.state = State.RUNNING;
+            }
+            fire(handle);
+            CURRENT.set(handle);
+            try {
+                super.run();
+            } finally {
+                CURRENT.remove();
+                // The body has returned, so nothing more can come from it after CANCELLED
+                if (isCancelled()) {
+                    finish(handle, State.CANCELLED);
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                // A running body may not have noticed the interrupt yet; its worker reports the
+                // cancellation once it has stopped. A queued one never started, so report it here.
+                synchronized (handle) {
+                    if (handle.state == State.RUNNING) {
+                        return;
+                    }
+                }
+                finish(handle, State.CANCELLED);
+                return;
+            }
+            try {
+                get();
+                finish(handle, State.COMPLETED);
+            } catch (ExecutionException e) {
+                handle.error = e.getCause();
+                finish(handle, e.getCause() instanceof InterruptedException ? State.CANCELLED : State.FAILED);
+            } catch (InterruptedException | CancellationException e) {
+                finish(handle, State.CANCELLED);
+            }
+        }
+    }
+}
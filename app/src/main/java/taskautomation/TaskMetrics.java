@@ -0,0 +1,233 @@
+package taskautomation;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per task type: end-to-end run time, time spent queued, each macro step, and outcome counters.
+// Tasks are timed from the engine's handle timestamps and steps are reported by the macro
+// context, so recording happens on the worker thread with no locks. Read through JMX
+// (taskautomation:type=TaskMetrics) or the periodic [metrics] log dump.
+public class TaskMetrics implements TaskEngine.Listener, TaskMetricsMXBean {
+    private static final String OBJECT_NAME = "taskautomation:type=TaskMetrics";
+
+    private final ConcurrentHashMap<String, TaskStats> tasks = new ConcurrentHashMap<>();
+    private ScheduledExecutorService logger;
+    private long lastLoggedCount = -1;
+
+    @Override
+    public void onStateChanged(TaskEngine.TaskHandle handle) {
+        if (!handle.isDone()) {
+            return;
+        }
+        TaskStats stats = stats(handle.getName());
+        switch (handle.getState()) {
+            case COMPLETED:
+                stats.completed.increment();
+                break;
+            case FAILED:
+                stats.failed.increment();
+                break;
+            default:
+                stats.cancelled.increment();
+                break;
+        }
+        // Tasks rejected or cancelled before they started only count as outcomes
+        if (handle.getStartedNanos() != 0) {
+            stats.queued.record(handle.getStartedNanos() - handle.getSubmittedNanos());
+            stats.run.record(handle.getFinishedNanos() - handle.getStartedNanos());
+        }
+    }
+
+    public void recordStep(String task, String step, long nanos) {
+        stats(task).steps.computeIfAbsent(step, s -> new LatencyHistogram()).record(nanos);
+    }
+
+    private TaskStats stats(String task) {
+        return tasks.computeIfAbsent(task, TaskStats::new);
+    }
+
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("[metrics] JMX registration failed: " + e.getMessage());
+        }
+    }
+
+    // Prints the report every intervalSeconds when something new has been recorded
+    public synchronized void startLogging(long intervalSeconds) {
+        if (logger != null || intervalSeconds <= 0) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(this::logIfChanged, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopLogging() {
+        if (logger != null) {
+            logger.shutdownNow();
+            logger = null;
+        }
+    }
+
+    private void logIfChanged() {
+        long count = 0;
+        for (TaskStats stats : tasks.values()) {
+            count += stats.outcomes();
+        }
+        if (count != lastLoggedCount) {
+            lastLoggedCount = count;
+            for (String line : getReport()) {
+                System.out.println("[metrics] " + line);
+            }
+        }
+    }
+
+    @Override
+    public List<Summary> getTasks() {
+        List<Summary> summaries = new ArrayList<>();
+        for (TaskStats stats : sorted()) {
+            summaries.add(new Summary(stats));
+        }
+        return summaries;
+    }
+
+    @Override
+    public String[] getReport() {
+        return getReport(false);
+    }
+
+    // With virtualSteps (a SimulatedContext reports steps on its virtual clock, while run and queued
+    // come from the engine's real one) the two are labelled and the steps get their own block
+    public String[] getReport(boolean virtualSteps) {
+        List<String> lines = new ArrayList<>();
+        for (TaskStats stats : sorted()) {
+            lines.add(String.format("%s: %d ok, %d failed, %d cancelled", stats.name,
+                stats.completed.sum(), stats.failed.sum(), stats.cancelled.sum()));
+            lines.add(line(virtualSteps ? "run (wall clock)" : "run", stats.run));
+            lines.add(line(virtualSteps ? "queued (wall clock)" : "queued", stats.queued));
+            List<String> steps = new ArrayList<>(stats.steps.keySet());
+            steps.sort(Comparator.comparingInt(TaskMetrics::stepNumber).thenComparing(Comparator.naturalOrder()));
+            if (virtualSteps && !steps.isEmpty()) {
+                lines.add("  steps (virtual time):");
+            }
+            for (String step : steps) {
+                lines.add(line(virtualSteps ? "  " + step : step, stats.steps.get(step)));
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public double percentileMillis(String task, double quantile) {
+        TaskStats stats = tasks.get(task);
+        return stats == null ? Double.NaN : stats.run.percentile(quantile) / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        tasks.clear();
+    }
+
+    private List<TaskStats> sorted() {
+        List<TaskStats> list = new ArrayList<>(tasks.values());
+        list.sort(Comparator.comparing(s -> s.name));
+        return list;
+    }
+
+    private static String line(String label, LatencyHistogram h) {
+        return String.format("  %-32s n=%-6d p50 %9.3f  p99 %9.3f  p99.9 %9.3f  max %9.3f ms", label, h.count(),
+            h.percentile(0.5) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6, h.max() / 1e6);
+    }
+
+    // Step labels start with their 1-based step number
+    private static int stepNumber(String label) {
+        int space = label.indexOf(' ');
+        try {
+            return Integer.parseInt(space < 0 ? label : label.substring(0, space));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static final class TaskStats {
+        final String name;
+        final LatencyHistogram run = new LatencyHistogram();
+        final LatencyHistogram queued = new LatencyHistogram();
+        final ConcurrentHashMap<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+
+        TaskStats(String name) {
+            this.name = name;
+        }
+
+        long outcomes() {
+            return completed.sum() + failed.sum() + cancelled.sum();
+        }
+    }
+
+    // Exposed as CompositeData by the MXBean; times are in milliseconds
+    public static final class Summary {
+        private final String task;
+        private final long completed;
+        private final long failed;
+        private final long cancelled;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        Summary(TaskStats stats) {
+            task = stats.name;
+            completed = stats.completed.sum();
+            failed = stats.failed.sum();
+            cancelled = stats.cancelled.sum();
+            p50 = stats.run.percentile(0.5) / 1e6;
+            p99 = stats.run.percentile(0.99) / 1e6;
+            p999 = stats.run.percentile(0.999) / 1e6;
+            max = stats.run.max() / 1e6;
+        }
+
+        public String getTask() {
+            return task;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public double getP50Millis() {
+            return p50;
+        }
+
+        public double getP99Millis() {
+            return p99;
+        }
+
+        public double getP999Millis() {
+            return p999;
+        }
+
+        public double getMaxMillis() {
+            return max;
+        }
+    }
+}
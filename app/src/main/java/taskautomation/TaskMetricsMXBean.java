@@ -0,0 +1,14 @@
+package taskautomation;
+
+import java.util.List;
+
+// JMX view of TaskMetrics, registered as taskautomation:type=TaskMetrics
+public interface TaskMetricsMXBean {
+    List<TaskMetrics.Summary> getTasks();
+
+    String[] getReport();
+
+    double percentileMillis(String task, double quantile);
+
+    void reset();
+}
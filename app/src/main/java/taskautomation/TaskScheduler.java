@@ -0,0 +1,414 @@
+package taskautomation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Recurring and deferred task runs on a TimingWheel. A schedule spec is one of
+//   cron <minute hour day month weekday | @daily ...>
+//   every <duration> [after=<duration>]
+//   at <yyyy-MM-ddTHH:mm>
+//   in <duration>
+// optionally followed by jitter=<duration> (a random extra delay per run, never accumulated) and
+// misfire=once|skip. Durations are 500ms, 30s, 5m, 2h, 1d or plain milliseconds.
+//
+// cron and at are wall-clock schedules; every and in run on the monotonic clock. Once a second the
+// scheduler compares the two clocks, and if the wall clock jumped (manual change, NTP step, resume
+// from sleep) the wall-clock schedules are re-armed. A run that comes due more than the misfire
+// threshold late either fires once (misfire=once, the default) or is skipped to the next time.
+// Missed repetitions are never replayed in a burst.
+//
+// Due runs are handed to the dispatcher on the wheel thread; TaskEngine.submit never blocks, so a
+// full queue shows up as a failed run rather than a stalled wheel. A run is skipped while the
+// previous run of the same schedule is still queued or running.
+public class TaskScheduler {
+    public enum Misfire { ONCE, SKIP }
+
+    public interface Dispatcher {
+        // Returns the submitted task, or null if the task no longer exists
+        TaskEngine.TaskHandle dispatch(String task);
+    }
+
+    public interface Listener {
+        void onEvent(Schedule schedule, String event);
+    }
+
+    private static final long CLOCK_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CLOCK_JUMP_MS = 2000;
+
+    private final TimingWheel wheel;
+    private final Dispatcher dispatcher;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long misfireThresholdMs;
+    private volatile Listener listener = (schedule, event) -> System.out.println("[scheduler] " + schedule + ": " + event);
+    private long clockOffsetMs;
+
+    public TaskScheduler(Dispatcher dispatcher, long misfireThresholdMs) {
+        this.dispatcher = dispatcher;
+        this.misfireThresholdMs = misfireThresholdMs;
+        wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, "scheduler-wheel");
+        clockOffsetMs = clockOffset();
+        wheel.schedule(CLOCK_CHECK_NANOS, this::checkClock);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Parses a spec (see above) and starts the schedule
+    public Schedule schedule(String task, String spec) {
+        Schedule schedule = new Schedule(task, parse(spec));
+        schedules.put(schedule.id, schedule);
+        arm(schedule, System.currentTimeMillis(), System.nanoTime(), true);
+        return schedule;
+    }
+
+    // Throws IllegalArgumentException if the spec is malformed; used to validate macro headers
+    public static void validate(String spec) {
+        parse(spec);
+    }
+
+    public Collection<Schedule> getSchedules() {
+        return Collections.unmodifiableCollection(schedules.values());
+    }
+
+    public int pendingTimeouts() {
+        return wheel.pending();
+    }
+
+    public void shutdown() {
+        for (Schedule schedule : schedules.values()) {
+            schedule.cancel();
+        }
+        wheel.stop();
+    }
+
+    private static Spec parse(String spec) {
+        List<String> tokens = new ArrayList<>(Arrays.asList(spec.trim().split("\\s+")));
+        if (tokens.isEmpty() || tokens.get(0).isEmpty()) {
+            throw new IllegalArgumentException("empty schedule");
+        }
+        long jitterMs = 0;
+        Misfire misfire = Misfire.ONCE;
+        while (tokens.size() > 1 && tokens.get(tokens.size() - 1).contains("=") && !tokens.get(tokens.size() - 1).startsWith("after=")) {
+            String option = tokens.remove(tokens.size() - 1);
+            if (option.startsWith("jitter=")) {
+                jitterMs = duration(option.substring(7));
+            } else if (option.startsWith("misfire=")) {
+                misfire = Misfire.valueOf(option.substring(8).toUpperCase());
+            } else {
+                throw new IllegalArgumentException("unknown schedule option '" + option + "'");
+            }
+        }
+        String kind = tokens.remove(0).toLowerCase();
+        String rest = String.join(" ", tokens);
+        switch (kind) {
+            case "cron":
+                return new Spec(spec, CronExpression.parse(rest), 0, 0, 0, jitterMs, misfire);
+            case "every": {
+                long initial = -1;
+                if (tokens.size() == 2 && tokens.get(1).startsWith("after=")) {
+                    initial = duration(tokens.get(1).substring(6));
+                } else if (tokens.size() != 1) {
+                    throw new IllegalArgumentException("expected 'every <duration> [after=<duration>]'");
+                }
+                long period = duration(tokens.get(0));
+                if (period <= 0) throw new IllegalArgumentException("period must be positive");
+                return new Spec(spec, null, period, initial < 0 ? period : initial, 0, jitterMs, misfire);
+            }
+            case "at": {
+                long at = LocalDateTime.parse(rest).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                return new Spec(spec, null, 0, 0, at, jitterMs, misfire);
+            }
+            case "in":
+                return new Spec(spec, null, 0, duration(rest), 0, jitterMs, misfire);
+            default:
+                throw new IllegalArgumentException("unknown schedule '" + kind + "' (expected cron, every, at or in)");
+        }
+    }
+
+    static long duration(String s) {
+        String value = s.trim().toLowerCase();
+        long unit = 1;
+        if (value.endsWith("ms")) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            unit = 1000;
+        } else if (value.endsWith("m")) {
+            unit = 60_000;
+        } else if (value.endsWith("h")) {
+            unit = 3_600_000;
+        } else if (value.endsWith("d")) {
+            unit = 86_400_000;
+        }
+        if (unit != 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad duration '" + s + "'");
+        }
+    }
+
+    // Computes the next due time and puts a timeout on the wheel
+    private void arm(Schedule s, long nowMillis, long nowNanos, boolean first) {
+        synchronized (s) {
+            if (s.cancelled) {
+                return;
+            }
+            if (s.timeout != null) {
+                s.timeout.cancel();
+                s.timeout = null;
+            }
+            long delayMs;
+            if (s.cron != null) {
+                s.dueMillis = s.cron.nextMillis(Math.max(nowMillis, s.dueMillis), zone);
+                if (s.dueMillis == Long.MAX_VALUE) {
+                    finish(s, "cron expression never matches again");
+                    return;
+                }
+                delayMs = s.dueMillis - nowMillis;
+            } else if (s.atMillis != 0) {
+                if (!first) {
+                    finish(s, "done");
+                    return;
+                }
+                s.dueMillis = s.atMillis;
+                delayMs = s.atMillis - nowMillis;
+            } else if (s.periodMs > 0) {
+                if (first) {
+                    s.dueNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(s.initialMs);
+                } else {
+                    // Less the delay the last run was meant to have past its due time, so its own jitter
+                    // doesn't count as missed periods
+                    long reference = nowNanos - Math.max(0, s.fireAtNanos - s.dueNanos);
+                    s.dueNanos += TimeUnit.MILLISECONDS.toNanos(s.periodMs);
+                    if (s.dueNanos <= reference) {
+                        // Realign to the period grid instead of replaying what was missed
+                        long periodNanos = TimeUnit.MILLISECONDS.toNanos(s.periodMs);
+                        long missed = (reference - s.dueNanos) / periodNanos + 1;
+                        s.dueNanos += missed * periodNanos;
+                        s.misfires += missed;
+                    }
+                }
+                delayMs = TimeUnit.NANOSECONDS.toMillis(s.dueNanos - nowNanos);
+                s.dueMillis = nowMillis + delayMs;
+            } else {
+                if (!first) {
+                    finish(s, "done");
+                    return;
+                }
+                s.dueNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(s.initialMs);
+                delayMs = s.initialMs;
+                s.dueMillis = nowMillis + delayMs;
+            }
+            s.drawnJitterMs = s.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(s.jitterMs + 1) : 0;
+            long fireInNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs) + s.drawnJitterMs);
+            s.fireAtNanos = nowNanos + fireInNanos;
+            s.timeout = wheel.schedule(fireInNanos, () -> fire(s));
+        }
+    }
+
+    // Runs on the wheel thread
+    private void fire(Schedule s) {
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        synchronized (s) {
+            if (s.cancelled) {
+                return;
+            }
+            s.timeout = null;
+            // A wall clock set back since arming: wait for the real due time
+            if (s.isWallClock() && nowMillis < s.dueMillis - CLOCK_JUMP_MS) {
+                s.timeout = wheel.schedule(TimeUnit.MILLISECONDS.toNanos(s.dueMillis + s.drawnJitterMs - nowMillis), () -> fire(s));
+                return;
+            }
+        }
+        long lateMs;
+        synchronized (s) {
+            // With jitter longer than the period a run can come due while the previous one is still
+            // jittered, so monotonic lateness is measured from when the wheel was asked to fire
+            lateMs = s.isWallClock() ? nowMillis - s.dueMillis - s.drawnJitterMs : TimeUnit.NANOSECONDS.toMillis(nowNanos - s.fireAtNanos);
+        }
+        if (lateMs > misfireThresholdMs) {
+            s.misfires++;
+            if (s.misfire == Misfire.SKIP) {
+                listener.onEvent(s, "misfired by " + lateMs + " ms, skipped");
+                arm(s, nowMillis, nowNanos, false);
+                return;
+            }
+            listener.onEvent(s, "misfired by " + lateMs + " ms, running once now");
+        }
+        TaskEngine.TaskHandle previous = s.lastRun;
+        if (previous != null && !previous.isDone()) {
+            // Reported once per streak so a fast schedule behind a slow task doesn't flood the log
+            s.overlaps++;
+            if (!s.overlapping) {
+                s.overlapping = true;
+                listener.onEvent(s, "previous run still " + previous.getState().name().toLowerCase() + ", skipping until it finishes");
+            }
+        } else {
+            s.overlapping = false;
+            TaskEngine.TaskHandle handle = dispatcher.dispatch(s.task);
+            if (handle == null) {
+                finish(s, "task no longer exists");
+                return;
+            }
+            s.lastRun = handle;
+            s.fired++;
+        }
+        arm(s, nowMillis, nowNanos, false);
+    }
+
+    private void finish(Schedule s, String why) {
+        s.cancel();
+        listener.onEvent(s, why);
+    }
+
+    // Runs on the wheel thread once a second
+    private void checkClock() {
+        long offset = clockOffset();
+        long jump = offset - clockOffsetMs;
+        clockOffsetMs = offset;
+        if (Math.abs(jump) >= CLOCK_JUMP_MS) {
+            System.out.println("[scheduler] wall clock moved " + (jump > 0 ? "forward " : "back ") + Math.abs(jump) + " ms; re-arming wall-clock schedules");
+            long nowMillis = System.currentTimeMillis();
+            long nowNanos = System.nanoTime();
+            for (Schedule s : schedules.values()) {
+                if (!s.isWallClock()) {
+                    continue;
+                }
+                synchronized (s) {
+                    if (s.cancelled || s.timeout == null) {
+                        continue;
+                    }
+                    if (s.dueMillis <= nowMillis) {
+                        // Already due on the new clock: fire now so misfire handling applies
+                        s.timeout.cancel();
+                        s.timeout = wheel.schedule(0, () -> fire(s));
+                    } else {
+                        s.timeout.cancel();
+                        s.timeout = wheel.schedule(TimeUnit.MILLISECONDS.toNanos(s.dueMillis + s.drawnJitterMs - nowMillis), () -> fire(s));
+                    }
+                }
+            }
+        }
+        wheel.schedule(CLOCK_CHECK_NANOS, this::checkClock);
+    }
+
+    private static long clockOffset() {
+        return System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class Spec {
+        final String text;
+        final CronExpression cron;
+        final long periodMs;
+        final long initialMs;
+        final long atMillis;
+        final long jitterMs;
+        final Misfire misfire;
+
+        Spec(String text, CronExpression cron, long periodMs, long initialMs, long atMillis, long jitterMs, Misfire misfire) {
+            this.text = text;
+            this.cron = cron;
+            this.periodMs = periodMs;
+            this.initialMs = initialMs;
+            this.atMillis = atMillis;
+            this.jitterMs = jitterMs;
+            this.misfire = misfire;
+        }
+    }
+
+    public final class Schedule {
+        private final long id = nextId.getAndIncrement();
+        private final String task;
+        private final String spec;
+        private final CronExpression cron;
+        private final long periodMs;
+        private final long initialMs;
+        private final long atMillis;
+        private final long jitterMs;
+        private final Misfire misfire;
+        private TimingWheel.Timeout timeout;
+        private volatile boolean cancelled;
+        private volatile long dueMillis;
+        private long dueNanos;
+        // The jitter drawn for the pending run, and when the wheel was asked to fire it (monotonic);
+        // both are intended delay, not lateness
+        private long drawnJitterMs;
+        private long fireAtNanos;
+        private volatile TaskEngine.TaskHandle lastRun;
+        private volatile long fired;
+        private volatile long misfires;
+        private volatile long overlaps;
+        private boolean overlapping;
+
+        private Schedule(String task, Spec spec) {
+            this.task = task;
+            this.spec = spec.text;
+            this.cron = spec.cron;
+            this.periodMs = spec.periodMs;
+            this.initialMs = spec.initialMs;
+            this.atMillis = spec.atMillis;
+            this.jitterMs = spec.jitterMs;
+            this.misfire = spec.misfire;
+        }
+
+        public String getTask() {
+            return task;
+        }
+
+        public String getSpec() {
+            return spec;
+        }
+
+        // Next due time on the wall clock, before jitter
+        public long getNextMillis() {
+            return dueMillis;
+        }
+
+        public long getFired() {
+            return fired;
+        }
+
+        public long getMisfires() {
+            return misfires;
+        }
+
+        public long getOverlaps() {
+            return overlaps;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                if (timeout != null) {
+                    timeout.cancel();
+                    timeout = null;
+                }
+            }
+            schedules.remove(id);
+        }
+
+        boolean isWallClock() {
+            return cron != null || atMillis != 0;
+        }
+
+        @Override
+        public String toString() {
+            return task + " [" + spec + "]";
+        }
+    }
+}
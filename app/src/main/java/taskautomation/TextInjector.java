@@ -0,0 +1,256 @@
+package taskautomation;
+
+import java.awt.*;
+import java.awt.datatransfer.*;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+
+public class TextInjector {
+    // Where key events go; a Robot in the app, a stub in benchmarks
+    public interface Keyboard {
+        void keyPress(int keyCode);
+
+        void keyRelease(int keyCode);
+    }
+
+    public enum Strategy {
+        CLASSIC,   // one key at a time with a fixed 50 ms gap (the original behaviour)
+        ADAPTIVE,  // deadline-paced bursts, shift held across runs of shifted characters
+        CLIPBOARD, // paste the whole payload with Ctrl+V
+        AUTO       // ADAPTIVE for short typable text, CLIPBOARD otherwise
+    }
+
+    public static final class Result {
+        public final Strategy strategy;
+        public final int chars;
+        public final long nanos;
+
+        Result(Strategy strategy, int chars, long nanos) {
+            this.strategy = strategy;
+            this.chars = chars;
+            this.nanos = nanos;
+        }
+
+        public double charsPerSecond() {
+            return nanos == 0 ? 0 : chars * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %d chars in %d ms (%.1f cps)", strategy, chars, TimeUnit.NANOSECONDS.toMillis(nanos), charsPerSecond());
+        }
+    }
+
+    static final int CLASSIC_DELAY_MS = 50;
+    static final int PASTE_SETTLE_MS = 150;
+
+    // US layout: key code per ASCII character and whether it needs shift
+    private static final int[] KEY_CODES = new int[128];
+    private static final boolean[] SHIFTED = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            KEY_CODES[c] = KeyEvent.VK_A + (c - 'a');
+            KEY_CODES[Character.toUpperCase(c)] = KEY_CODES[c];
+            SHIFTED[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            KEY_CODES[c] = KeyEvent.VK_0 + (c - '0');
+        }
+        map(' ', KeyEvent.VK_SPACE, false);
+        map('\n', KeyEvent.VK_ENTER, false);
+        map('\t', KeyEvent.VK_TAB, false);
+        String plain = "-=[]\\;',./`";
+        String shifted = "_+{}|:\"<>?~";
+        int[] symbolKeys = {KeyEvent.VK_MINUS, KeyEvent.VK_EQUALS, KeyEvent.VK_OPEN_BRACKET, KeyEvent.VK_CLOSE_BRACKET,
+            KeyEvent.VK_BACK_SLASH, KeyEvent.VK_SEMICOLON, KeyEvent.VK_QUOTE, KeyEvent.VK_COMMA, KeyEvent.VK_PERIOD,
+            KeyEvent.VK_SLASH, KeyEvent.VK_BACK_QUOTE};
+        for (int i = 0; i < symbolKeys.length; i++) {
+            map(plain.charAt(i), symbolKeys[i], false);
+            map(shifted.charAt(i), symbolKeys[i], true);
+        }
+        String digitsShifted = ")!@#$%^&*(";
+        for (int i = 0; i < digitsShifted.length(); i++) {
+            map(digitsShifted.charAt(i), KeyEvent.VK_0 + i, true);
+        }
+    }
+
+    private static void map(char c, int keyCode, boolean shift) {
+        KEY_CODES[c] = keyCode;
+        SHIFTED[c] = shift;
+    }
+
+    private final Keyboard keyboard;
+    private volatile int targetDelayMs = 8;
+    private volatile int newlineSettleMs = 40;
+    private volatile int clipboardThreshold = 200;
+
+    public TextInjector(Robot robot) {
+        this(new Keyboard() {
+            @Override
+            public void keyPress(int keyCode) {
+                robot.keyPress(keyCode);
+            }
+
+            @Override
+            public void keyRelease(int keyCode) {
+                robot.keyRelease(keyCode);
+            }
+        });
+    }
+
+    public TextInjector(Keyboard keyboard) {
+        this.keyboard = keyboard;
+    }
+
+    public void setTargetDelayMs(int targetDelayMs) {
+        this.targetDelayMs = Math.max(0, targetDelayMs);
+    }
+
+    public void setClipboardThreshold(int clipboardThreshold) {
+        this.clipboardThreshold = clipboardThreshold;
+    }
+
+    public static boolean isTypable(char c) {
+        return c < 128 && KEY_CODES[c] != 0;
+    }
+
+    public Result type(String text, Strategy strategy) throws InterruptedException {
+        strategy = choose(text, strategy);
+        long start = System.nanoTime();
+        switch (strategy) {
+            case CLASSIC:
+                typeClassic(text);
+                break;
+            case ADAPTIVE:
+                typeAdaptive(text);
+                break;
+            default:
+                paste(text);
+                break;
+        }
+        return new Result(strategy, text.length(), System.nanoTime() - start);
+    }
+
+    // The strategy AUTO resolves to for this text; other strategies are returned unchanged
+    Strategy choose(String text, Strategy strategy) {
+        if (strategy != Strategy.AUTO) {
+            return strategy;
+        }
+        return text.length() >= clipboardThreshold || !allTypable(text) ? Strategy.CLIPBOARD : Strategy.ADAPTIVE;
+    }
+
+    int getTargetDelayMs() {
+        return targetDelayMs;
+    }
+
+    int getNewlineSettleMs() {
+        return newlineSettleMs;
+    }
+
+    static int keyCode(char c) {
+        return KEY_CODES[c];
+    }
+
+    static boolean needsShift(char c) {
+        return SHIFTED[c];
+    }
+
+    private static boolean allTypable(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!isTypable(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void typeClassic(String text) throws InterruptedException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            checkInterrupted();
+            if (isTypable(c)) {
+                if (SHIFTED[c]) keyboard.keyPress(KeyEvent.VK_SHIFT);
+                keyboard.keyPress(KEY_CODES[c]);
+                keyboard.keyRelease(KEY_CODES[c]);
+                if (SHIFTED[c]) keyboard.keyRelease(KeyEvent.VK_SHIFT);
+            }
+            Thread.sleep(CLASSIC_DELAY_MS);
+        }
+    }
+
+    // Keys are scheduled against absolute deadlines, so time spent dispatching events counts toward
+    // the gap and several keys go out per sleep when the gap is below the timer resolution.
+    // If dispatch falls behind the schedule it is re-based instead of catching up in one burst.
+    private void typeAdaptive(String text) throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(targetDelayMs);
+        long settle = TimeUnit.MILLISECONDS.toNanos(newlineSettleMs);
+        long next = System.nanoTime();
+        boolean shiftDown = false;
+        try {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!isTypable(c)) {
+                    continue;
+                }
+                if (SHIFTED[c] != shiftDown) {
+                    if (SHIFTED[c]) keyboard.keyPress(KeyEvent.VK_SHIFT);
+                    else keyboard.keyRelease(KeyEvent.VK_SHIFT);
+                    shiftDown = SHIFTED[c];
+                }
+                keyboard.keyPress(KEY_CODES[c]);
+                keyboard.keyRelease(KEY_CODES[c]);
+
+                next += c == '\n' ? settle : interval;
+                long now = System.nanoTime();
+                long ahead = next - now;
+                if (ahead >= 1_000_000L) {
+                    TimeUnit.NANOSECONDS.sleep(ahead);
+                } else {
+                    checkInterrupted();
+                    if (ahead < -4 * interval) {
+                        next = now;
+                    }
+                }
+            }
+        } finally {
+            if (shiftDown) {
+                keyboard.keyRelease(KeyEvent.VK_SHIFT);
+            }
+        }
+    }
+
+    private void paste(String text) throws InterruptedException {
+        checkInterrupted();
+        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        Transferable previous = null;
+        try {
+            previous = clipboard.getContents(null);
+        } catch (IllegalStateException e) {
+            // Clipboard busy; nothing to restore
+        }
+        clipboard.setContents(new StringSelection(text), null);
+        try {
+            keyboard.keyPress(KeyEvent.VK_CONTROL);
+            keyboard.keyPress(KeyEvent.VK_V);
+            keyboard.keyRelease(KeyEvent.VK_V);
+            keyboard.keyRelease(KeyEvent.VK_CONTROL);
+            // The target reads the clipboard asynchronously; give it time before restoring
+            Thread.sleep(PASTE_SETTLE_MS);
+        } finally {
+            if (previous != null) {
+                try {
+                    clipboard.setContents(previous, null);
+                } catch (IllegalStateException e) {
+                    // Leave the pasted text in place rather than fail the task
+                }
+            }
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package taskautomation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Hierarchical timing wheel: four levels of 256 slots over a fixed tick (10 ms by default), so the
+// levels span 2.56 s, 11 min, 46 h and 497 days. Timeouts sit in intrusive doubly-linked slot lists,
+// which makes schedule and cancel O(1) regardless of how many are pending. When a lower level wraps,
+// the next slot of the level above is cascaded down; anything further out than the top level is
+// parked at its far edge and re-placed when it comes round.
+//
+// One daemon thread advances the wheel and runs expired callbacks. Callbacks must be short and must
+// not block; hand real work to an executor. If the thread falls behind (GC, a stalled machine) it
+// replays every missed tick, so nothing expires out of order.
+public class TimingWheel {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final long MAX_SPAN = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private Timeout prev;
+        private Timeout next;
+        private Timeout[] slots;
+        private int slot = -1;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        // Returns false if it already expired or was cancelled
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (slot < 0) {
+                    return false;
+                }
+                unlink(this);
+                pending--;
+                return true;
+            }
+        }
+
+        public boolean isPending() {
+            synchronized (TimingWheel.this) {
+                return slot >= 0;
+            }
+        }
+    }
+
+    private final long tickNanos;
+    private final Timeout[][] wheels = new Timeout[LEVELS][SLOTS];
+    private final long startNanos;
+    private final Thread thread;
+    private long currentTick;
+    private int pending;
+    private volatile boolean running = true;
+
+    public TimingWheel(long tick, TimeUnit unit, String threadName) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.startNanos = System.nanoTime();
+        thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Runs task on the wheel thread after at least delayNanos (rounded up to the next tick)
+    public Timeout schedule(long delayNanos, Runnable task) {
+        synchronized (this) {
+            long ticks = (System.nanoTime() - startNanos + Math.max(0, delayNanos) + tickNanos - 1) / tickNanos;
+            Timeout timeout = new Timeout(Math.max(ticks, currentTick + 1), task);
+            place(timeout);
+            pending++;
+            return timeout;
+        }
+    }
+
+    public synchronized int pending() {
+        return pending;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        List<Timeout> expired = new ArrayList<>();
+        while (running) {
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            while (running && currentTick < target) {
+                synchronized (this) {
+                    advance(expired);
+                }
+                for (Timeout timeout : expired) {
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("[wheel] timeout callback failed: " + e);
+                    }
+                }
+                expired.clear();
+            }
+            long wait = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    private void advance(List<Timeout> expired) {
+        long tick = ++currentTick;
+        // Cascade top-down so a timeout moved out of level 3 can be moved again out of level 2
+        if ((tick & MASK) == 0) {
+            int i1 = (int) (tick >>> SLOT_BITS) & MASK;
+            if (i1 == 0) {
+                int i2 = (int) (tick >>> (2 * SLOT_BITS)) & MASK;
+                if (i2 == 0) {
+                    cascade(3, (int) (tick >>> (3 * SLOT_BITS)) & MASK);
+                }
+                cascade(2, i2);
+            }
+            cascade(1, i1);
+        }
+        Timeout[] level0 = wheels[0];
+        int index = (int) tick & MASK;
+        Timeout t = level0[index];
+        level0[index] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.slot = -1;
+            if (t.deadline > tick) {
+                // Parked beyond the top level; place it again
+                place(t);
+            } else {
+                pending--;
+                expired.add(t);
+            }
+            t = next;
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timeout t = wheels[level][index];
+        wheels[level][index] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.slot = -1;
+            place(t);
+            t = next;
+        }
+    }
+
+    private void place(Timeout t) {
+        long delta = t.deadline - currentTick;
+        // A timeout cascaded onto the current tick lands in the level 0 slot about to be expired
+        long at = delta > MAX_SPAN ? currentTick + MAX_SPAN : Math.max(t.deadline, currentTick);
+        delta = at - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) (at >>> (SLOT_BITS * level)) & MASK;
+        Timeout[] slots = wheels[level];
+        t.slots = slots;
+        t.slot = index;
+        t.prev = null;
+        t.next = slots[index];
+        if (t.next != null) {
+            t.next.prev = t;
+        }
+        slots[index] = t;
+    }
+
+    private static void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            t.slots[t.slot] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = t.next = null;
+        t.slot = -1;
+    }
+}
@@ -0,0 +1,89 @@
+package taskautomation;
+
+// Frame classifier and endpointer. A frame is voiced when its energy clears an adaptive noise floor
+// by a margin, or clears a smaller margin with a speech-like zero-crossing rate (fricatives are quiet
+// but noisy). An utterance starts after onsetFrames voiced frames in a row and ends after
+// hangoverFrames unvoiced ones. No allocation after construction.
+public class VoiceActivityDetector {
+    public enum Event { NONE, START, CONTINUE, END }
+
+    private final int onsetFrames;
+    private final int hangoverFrames;
+    private final double strongMarginDb;
+    private final double weakMarginDb;
+    private double noiseFloorDb = 30;
+    private int voicedRun;
+    private int unvoicedRun;
+    private boolean inSpeech;
+    private double lastEnergyDb;
+    private double lastZcr;
+
+    public VoiceActivityDetector(int onsetFrames, int hangoverFrames) {
+        this(onsetFrames, hangoverFrames, 12.0, 6.0);
+    }
+
+    public VoiceActivityDetector(int onsetFrames, int hangoverFrames, double strongMarginDb, double weakMarginDb) {
+        this.onsetFrames = onsetFrames;
+        this.hangoverFrames = hangoverFrames;
+        this.strongMarginDb = strongMarginDb;
+        this.weakMarginDb = weakMarginDb;
+    }
+
+    public Event process(short[] frame, int offset, int length) {
+        double sumSquares = 0;
+        int crossings = 0;
+        short previous = frame[offset];
+        for (int i = offset; i < offset + length; i++) {
+            short s = frame[i];
+            sumSquares += (double) s * s;
+            if ((s ^ previous) < 0) {
+                crossings++;
+            }
+            previous = s;
+        }
+        lastEnergyDb = 10 * Math.log10(sumSquares / length + 1);
+        lastZcr = (double) crossings / length;
+        boolean voiced = lastEnergyDb > noiseFloorDb + strongMarginDb
+            || (lastEnergyDb > noiseFloorDb + weakMarginDb && lastZcr > 0.2 && lastZcr < 0.6);
+
+        if (!inSpeech) {
+            // Track the floor quickly downward, slowly upward, and only outside speech
+            noiseFloorDb = lastEnergyDb < noiseFloorDb ? lastEnergyDb : noiseFloorDb * 0.98 + lastEnergyDb * 0.02;
+            voicedRun = voiced ? voicedRun + 1 : 0;
+            if (voicedRun >= onsetFrames) {
+                inSpeech = true;
+                unvoicedRun = 0;
+                return Event.START;
+            }
+            return Event.NONE;
+        }
+        unvoicedRun = voiced ? 0 : unvoicedRun + 1;
+        if (unvoicedRun >= hangoverFrames) {
+            inSpeech = false;
+            voicedRun = 0;
+            return Event.END;
+        }
+        return Event.CONTINUE;
+    }
+
+    // Frames already seen before START that belong to the utterance
+    public int onsetFrames() {
+        return onsetFrames;
+    }
+
+    public boolean inSpeech() {
+        return inSpeech;
+    }
+
+    public double lastEnergyDb() {
+        return lastEnergyDb;
+    }
+
+    public double lastZcr() {
+        return lastZcr;
+    }
+
+    public double noiseFloorDb() {
+        return noiseFloorDb;
+    }
+}
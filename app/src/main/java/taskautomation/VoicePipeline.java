@@ -0,0 +1,400 @@
+package taskautomation;
+
+import javax.sound.sampled.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Audio front end for voice control:
+//
+//   capture thread  --PcmRingBuffer-->  VAD thread  --segment queue-->  recognizer thread  --> listener
+//
+// Capture reads 16-bit PCM from a TargetDataLine (or a WAV file standing in for one), downmixes to
+// mono and pushes fixed 20 ms frames into a preallocated ring. The VAD thread endpoints utterances
+// into a fixed pool of segment buffers and hands them to the pluggable Recognizer; text it returns
+// goes to the listener. All buffers are allocated up front, so memory is bounded. When a stage
+// falls behind, live capture drops frames (or whole utterances) and counts them rather than queueing.
+public class VoicePipeline {
+    public static final float SAMPLE_RATE = 16000f;
+    public static final int FRAME_MS = 20;
+
+    public interface Recognizer {
+        // Returns the recognized command text, or null if nothing was understood
+        String recognize(Utterance utterance) throws Exception;
+    }
+
+    public interface Listener {
+        void onCommand(String text, Utterance utterance);
+    }
+
+    // An endpointed utterance; valid only until recognize() returns
+    public static final class Utterance {
+        final short[] samples;
+        int length;
+        int sampleRate;
+        long startFrame;
+        long endCaptureNanos;
+        long emittedNanos;
+
+        Utterance(int maxSamples) {
+            samples = new short[maxSamples];
+        }
+
+        public short[] samples() {
+            return samples;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public int sampleRate() {
+            return sampleRate;
+        }
+
+        public double durationSeconds() {
+            return (double) length / sampleRate;
+        }
+
+        public long startFrame() {
+            return startFrame;
+        }
+    }
+
+    public static final class Stats {
+        final AtomicLong framesCaptured = new AtomicLong();
+        final AtomicLong framesDropped = new AtomicLong();
+        final AtomicLong framesProcessed = new AtomicLong();
+        final AtomicLong processingNanos = new AtomicLong();
+        final AtomicLong utterances = new AtomicLong();
+        final AtomicLong utterancesEmitted = new AtomicLong();
+        final AtomicLong utterancesHandled = new AtomicLong();
+        final AtomicLong utterancesDropped = new AtomicLong();
+        final AtomicLong latencyNanosTotal = new AtomicLong();
+        final AtomicLong latencyNanosMax = new AtomicLong();
+
+        void recordLatency(long nanos) {
+            latencyNanosTotal.addAndGet(nanos);
+            latencyNanosMax.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long framesDropped() {
+            return framesDropped.get();
+        }
+
+        public long utterances() {
+            return utterances.get();
+        }
+
+        @Override
+        public String toString() {
+            long processed = framesProcessed.get();
+            long done = utterances.get();
+            double audioSeconds = processed * FRAME_MS / 1000.0;
+            return String.format("frames captured=%d processed=%d dropped=%d | utterances=%d dropped=%d | "
+                    + "end-to-end latency avg=%.1f ms max=%.1f ms | VAD cpu=%.2f%% of real time",
+                framesCaptured.get(), processed, framesDropped.get(), done, utterancesDropped.get(),
+                done == 0 ? 0 : latencyNanosTotal.get() / 1e6 / done, latencyNanosMax.get() / 1e6,
+                audioSeconds == 0 ? 0 : 100.0 * processingNanos.get() / 1e9 / audioSeconds);
+        }
+    }
+
+    private final int frameSamples = (int) (SAMPLE_RATE * FRAME_MS / 1000);
+    private final PcmRingBuffer ring;
+    private final VoiceActivityDetector vad;
+    private final int preRollFrames;
+    private final BlockingQueue<Utterance> freeSegments;
+    private final BlockingQueue<Utterance> readySegments;
+    private final Recognizer recognizer;
+    private final Listener listener;
+    private final Stats stats = new Stats();
+    private volatile boolean running;
+    private Thread captureThread;
+    private Thread vadThread;
+    private Thread recognizerThread;
+
+    public VoicePipeline(Recognizer recognizer, Listener listener) {
+        this(recognizer, listener, 50, 10, 500, 4);
+    }
+
+    // ringFrames/preRollFrames/maxUtteranceFrames are in 20 ms frames; segments bounds queued utterances
+    public VoicePipeline(Recognizer recognizer, Listener listener, int ringFrames, int preRollFrames, int maxUtteranceFrames, int segments) {
+        this.recognizer = recognizer;
+        this.listener = listener;
+        this.ring = new PcmRingBuffer(frameSamples, ringFrames);
+        this.vad = new VoiceActivityDetector(3, 15);
+        this.preRollFrames = preRollFrames;
+        this.freeSegments = new ArrayBlockingQueue<>(segments);
+        this.readySegments = new ArrayBlockingQueue<>(segments);
+        for (int i = 0; i < segments; i++) {
+            freeSegments.add(new Utterance((preRollFrames + maxUtteranceFrames) * frameSamples));
+        }
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Captures from the default microphone until stop()
+    public void startMicrophone() throws LineUnavailableException {
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        TargetDataLine line = AudioSystem.getTargetDataLine(format);
+        line.open(format, frameSamples * 2 * 8);
+        line.start();
+        AudioInputStream stream = new AudioInputStream(line);
+        start(stream, false, false);
+    }
+
+    // Replays a 16-bit PCM WAV file as if it were a microphone; realtime paces it at 1x
+    public void startFile(File wav, boolean realtime) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream stream = AudioSystem.getAudioInputStream(wav);
+        AudioFormat f = stream.getFormat();
+        if (f.getSampleSizeInBits() != 16 || Math.abs(f.getSampleRate() - SAMPLE_RATE) > 1) {
+            AudioFormat target = new AudioFormat(SAMPLE_RATE, 16, f.getChannels(), true, false);
+            if (!AudioSystem.isConversionSupported(target, f)) {
+                stream.close();
+                throw new UnsupportedAudioFileException("need 16-bit " + (int) SAMPLE_RATE + " Hz PCM, got " + f);
+            }
+            stream = AudioSystem.getAudioInputStream(target, stream);
+        }
+        // Paced replay behaves like a live line and drops; unpaced replay waits so no audio is lost
+        start(stream, realtime, !realtime);
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread t : new Thread[]{captureThread, vadThread, recognizerThread}) {
+            if (t != null) {
+                t.interrupt();
+                t.join(1000);
+            }
+        }
+    }
+
+    // Waits for a file source to be fully processed and recognized
+    public void awaitDrained() throws InterruptedException {
+        captureThread.join();
+        while (stats.framesProcessed.get() + stats.framesDropped.get() < stats.framesCaptured.get()
+            || stats.utterancesHandled.get() < stats.utterancesEmitted.get()) {
+            Thread.sleep(5);
+        }
+        stop();
+    }
+
+    private void start(AudioInputStream stream, boolean paced, boolean blockWhenFull) {
+        running = true;
+        captureThread = new Thread(() -> capture(stream, paced, blockWhenFull), "voice-capture");
+        vadThread = new Thread(this::detect, "voice-vad");
+        recognizerThread = new Thread(this::recognize, "voice-recognizer");
+        for (Thread t : new Thread[]{captureThread, vadThread, recognizerThread}) {
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private void capture(AudioInputStream stream, boolean paced, boolean blockWhenFull) {
+        int channels = stream.getFormat().getChannels();
+        boolean bigEndian = stream.getFormat().isBigEndian();
+        byte[] bytes = new byte[frameSamples * 2 * channels];
+        short[] frame = new short[frameSamples];
+        long frameNanos = TimeUnit.MILLISECONDS.toNanos(FRAME_MS);
+        long next = System.nanoTime();
+        try {
+            while (running) {
+                int filled = 0;
+                while (filled < bytes.length) {
+                    int n = stream.read(bytes, filled, bytes.length - filled);
+                    if (n < 0) {
+                        return;
+                    }
+                    filled += n;
+                }
+                if (paced) {
+                    // File stand-in for a live line: release one frame per 20 ms
+                    next += frameNanos;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                for (int i = 0; i < frameSamples; i++) {
+                    int sum = 0;
+                    for (int c = 0; c < channels; c++) {
+                        int b = (i * channels + c) * 2;
+                        sum += bigEndian
+                            ? (short) ((bytes[b] << 8) | (bytes[b + 1] & 0xFF))
+                            : (short) ((bytes[b + 1] << 8) | (bytes[b] & 0xFF));
+                    }
+                    frame[i] = (short) (sum / channels);
+                }
+                stats.framesCaptured.incrementAndGet();
+                long captured = System.nanoTime();
+                while (!ring.offer(frame, 0, captured)) {
+                    if (!blockWhenFull) {
+                        stats.framesDropped.incrementAndGet();
+                        break;
+                    }
+                    Thread.sleep(1);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[voice] capture failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            // stopping
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void detect() {
+        short[] frame = new short[frameSamples];
+        short[] preRoll = new short[preRollFrames * frameSamples];
+        long preRollCount = 0;
+        long frameIndex = 0;
+        Utterance current = null;
+        while (running) {
+            long captured = ring.poll(frame, 0);
+            if (captured < 0) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            long start = System.nanoTime();
+            VoiceActivityDetector.Event event = vad.process(frame, 0, frameSamples);
+            switch (event) {
+                case START:
+                    current = freeSegments.poll();
+                    if (current == null) {
+                        // Recognizer is behind and every segment buffer is in use
+                        stats.utterancesDropped.incrementAndGet();
+                        break;
+                    }
+                    current.length = 0;
+                    current.sampleRate = (int) SAMPLE_RATE;
+                    // Pre-roll holds the onset frames plus a little lead-in
+                    int available = (int) Math.min(preRollCount, preRollFrames);
+                    current.startFrame = frameIndex - available;
+                    for (long f = preRollCount - available; f < preRollCount; f++) {
+                        int slot = (int) (f % preRollFrames);
+                        System.arraycopy(preRoll, slot * frameSamples, current.samples, current.length, frameSamples);
+                        current.length += frameSamples;
+                    }
+                    append(current, frame);
+                    break;
+                case CONTINUE:
+                    if (current != null) {
+                        append(current, frame);
+                        if (current.length + frameSamples > current.samples.length) {
+                            // Cut over-long utterances; the rest of this one is ignored
+                            emit(current, captured);
+                            current = null;
+                        }
+                    }
+                    break;
+                case END:
+                    if (current != null) {
+                        emit(current, captured);
+                        current = null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (!vad.inSpeech()) {
+                int slot = (int) (preRollCount % preRollFrames);
+                System.arraycopy(frame, 0, preRoll, slot * frameSamples, frameSamples);
+                preRollCount++;
+            }
+            frameIndex++;
+            stats.framesProcessed.incrementAndGet();
+            stats.processingNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private void emit(Utterance u, long lastCaptureNanos) {
+        u.endCaptureNanos = lastCaptureNanos;
+        u.emittedNanos = System.nanoTime();
+        stats.utterancesEmitted.incrementAndGet();
+        // Cannot fail: the queue holds as many entries as there are segment buffers
+        readySegments.offer(u);
+    }
+
+    private static void append(Utterance u, short[] frame) {
+        System.arraycopy(frame, 0, u.samples, u.length, frame.length);
+        u.length += frame.length;
+    }
+
+    private void recognize() {
+        while (running || !readySegments.isEmpty()) {
+            Utterance u;
+            try {
+                u = readySegments.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (u == null) {
+                continue;
+            }
+            try {
+                String text = recognizer.recognize(u);
+                stats.utterances.incrementAndGet();
+                stats.recordLatency(System.nanoTime() - u.endCaptureNanos);
+                if (text != null && listener != null) {
+                    listener.onCommand(text, u);
+                }
+            } catch (Exception e) {
+                System.err.println("[voice] recognizer failed: " + e.getMessage());
+            } finally {
+                freeSegments.offer(u);
+                stats.utterancesHandled.incrementAndGet();
+            }
+        }
+    }
+
+    // Loads a Recognizer by class name (-Dtaskautomation.recognizer), falling back to one that
+    // reports the utterance without transcribing it
+    public static Recognizer recognizerFromProperty() throws ReflectiveOperationException {
+        String className = System.getProperty("taskautomation.recognizer");
+        if (className == null) {
+            return u -> null;
+        }
+        return (Recognizer) Class.forName(className).getDeclaredConstructor().newInstance();
+    }
+
+    // java taskautomation.VoicePipeline <file.wav | mic> [seconds]
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: java taskautomation.VoicePipeline <file.wav | mic> [seconds]");
+            System.exit(2);
+        }
+        Recognizer base = recognizerFromProperty();
+        Recognizer recognizer = u -> {
+            System.out.printf("utterance at %.2f s, %.2f s long%n", u.startFrame() * FRAME_MS / 1000.0, u.durationSeconds());
+            return base.recognize(u);
+        };
+        VoicePipeline pipeline = new VoicePipeline(recognizer, (text, u) -> System.out.println("  -> " + text));
+        long start = System.nanoTime();
+        if (args[0].equals("mic")) {
+            pipeline.startMicrophone();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(args.length > 1 ? Long.parseLong(args[1]) : 10));
+            pipeline.stop();
+        } else {
+            pipeline.startFile(new File(args[0]), false);
+            pipeline.awaitDrained();
+        }
+        System.out.printf("%s%nwall time %.1f ms%n", pipeline.getStats(), (System.nanoTime() - start) / 1e6);
+    }
+}
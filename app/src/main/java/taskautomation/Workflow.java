@@ -0,0 +1,532 @@
+package taskautomation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// A DAG of steps, each a macro or a single inline macro step, compiled from a *.workflow file:
+//
+//   name: Morning Routine                   required, shown in the task list
+//   voice: good morning                     optional voice command aliases
+//
+//   step browser task Open Browser          run a macro from the library
+//   step notepad launch notepad             or any single macro step (launch, run, delay, type, keys)
+//   step note after notepad type Good morning!\n
+//   step save after note keys ctrl+s
+//   step report after browser,save run cmd /c echo done
+//
+// "after" names steps declared earlier, so a workflow can't contain a cycle. Each step runs as its
+// own TaskEngine task as soon as everything it depends on has completed, so independent chains
+// overlap on the worker pool. A ready step the engine has no room for is held by the run and
+// submitted as soon as a queue slot frees up; a busy engine only delays a workflow. A step that
+// fails or is cancelled skips everything downstream of it; other branches carry on. Steps that type still take the context's input lock, so parallel
+// branches never interleave keystrokes.
+//
+// A "wait change" only has a baseline from an action earlier in the same macro, so it can't be a
+// step of its own: by the time it ran, the step it waits on would already have changed the screen.
+// Put it in a macro after its action (a "task" step whose macro starts with one compares against
+// the screen as that step starts).
+public final class Workflow {
+    public enum StepState { PENDING, RUNNING, COMPLETED, FAILED, CANCELLED, SKIPPED }
+
+    private final String name;
+    private final String origin;
+    private final List<String> voiceAliases;
+    private final String[] ids;
+    private final MacroPlan[] plans;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+
+    private Workflow(String name, String origin, List<String> voiceAliases, List<String> ids, List<MacroPlan> plans,
+                     List<int[]> dependencies) {
+        this.name = name;
+        this.origin = origin;
+        this.voiceAliases = Collections.unmodifiableList(new ArrayList<>(voiceAliases));
+        this.ids = ids.toArray(new String[0]);
+        this.plans = plans.toArray(new MacroPlan[0]);
+        this.dependencies = dependencies.toArray(new int[0][]);
+        int[] counts = new int[this.ids.length];
+        for (int[] deps : this.dependencies) {
+            for (int d : deps) {
+                counts[d]++;
+            }
+        }
+        dependents = new int[this.ids.length][];
+        for (int i = 0; i < counts.length; i++) {
+            dependents[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < this.dependencies.length; i++) {
+            for (int d : this.dependencies[i]) {
+                dependents[d][counts[d]++] = i;
+            }
+        }
+    }
+
+    // tasks resolves "task <name>" steps, normally MacroLibrary::get
+    public static Workflow compile(String source, String origin, Function<String, MacroPlan> tasks) {
+        String name = null;
+        List<String> voice = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<MacroPlan> plans = new ArrayList<>();
+        List<int[]> dependencies = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        List<String[]> inline = new ArrayList<>();
+
+        String[] lines = source.split("\r?\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String where = origin + ":" + (i + 1) + ": ";
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] words = line.split("\\s+", 3);
+            if (!words[0].equals("step")) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException(where + "expected a header or a step");
+                }
+                String key = line.substring(0, colon).trim().toLowerCase();
+                String value = line.substring(colon + 1).trim();
+                switch (key) {
+                    case "name":
+                        if (value.isEmpty()) throw new IllegalArgumentException(where + "empty name");
+                        name = value;
+                        break;
+                    case "voice":
+                        for (String alias : value.split(",")) {
+                            if (!alias.trim().isEmpty()) voice.add(alias.trim().toLowerCase());
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException(where + "unknown header '" + key + "'");
+                }
+                continue;
+            }
+            if (words.length < 3) {
+                throw new IllegalArgumentException(where + "step needs an id and something to do");
+            }
+            String id = words[1];
+            if (index.containsKey(id)) {
+                throw new IllegalArgumentException(where + "duplicate step '" + id + "'");
+            }
+            String rest = words[2];
+            int[] deps = new int[0];
+            if (rest.startsWith("after ")) {
+                String[] parts = rest.substring(6).trim().split("\\s+", 2);
+                if (parts.length < 2) {
+                    throw new IllegalArgumentException(where + "step '" + id + "' has nothing to do");
+                }
+                String[] names = parts[0].split(",");
+                deps = new int[names.length];
+                for (int d = 0; d < names.length; d++) {
+                    Integer dep = index.get(names[d]);
+                    if (dep == null) {
+                        throw new IllegalArgumentException(where + "'" + names[d] + "' is not an earlier step");
+                    }
+                    deps[d] = dep;
+                }
+                rest = parts[1];
+            }
+            MacroPlan plan;
+            if (rest.startsWith("task ")) {
+                String task = rest.substring(5).trim();
+                plan = tasks.apply(task);
+                if (plan == null) {
+                    throw new IllegalArgumentException(where + "unknown task '" + task + "'");
+                }
+            } else {
+                String[] action = rest.split("\\s+", 3);
+                if (action.length >= 2 && action[0].equals("wait") && action[1].equals("change")) {
+                    throw new IllegalArgumentException(where + "'wait change' can't be a step of its own; put it in a macro after the action it waits for");
+                }
+                // Compiled once the name is known, so the plan is labelled "<workflow> / <step>"
+                plan = null;
+                inline.add(new String[]{String.valueOf(ids.size()), rest, where});
+            }
+            index.put(id, ids.size());
+            ids.add(id);
+            plans.add(plan);
+            dependencies.add(deps);
+        }
+        if (name == null) {
+            throw new IllegalArgumentException(origin + ": missing 'name:' header");
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException(origin + ": no steps");
+        }
+        for (String[] step : inline) {
+            int i = Integer.parseInt(step[0]);
+            String stepOrigin = origin + " step " + ids.get(i);
+            try {
+                plans.set(i, MacroCompiler.compile("name: " + name + " / " + ids.get(i) + "\n" + step[1], stepOrigin));
+            } catch (IllegalArgumentException e) {
+                String message = e.getMessage();
+                String prefix = stepOrigin + ":2: ";
+                throw new IllegalArgumentException(step[2] + (message.startsWith(prefix) ? message.substring(prefix.length()) : message));
+            }
+        }
+        return new Workflow(name, origin, voice, ids, plans, dependencies);
+    }
+
+    public static Workflow load(Path file, Function<String, MacroPlan> tasks) throws IOException {
+        return compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), file.toString(), tasks);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public List<String> getVoiceAliases() {
+        return voiceAliases;
+    }
+
+    public int getStepCount() {
+        return ids.length;
+    }
+
+    // Submits the root steps and returns at once; the rest follow from the workers as steps finish
+    public Run start(TaskEngine engine, MacroContext ctx, Function<MacroPlan, TextInjector.Strategy> typing) {
+        Run run = new Run(engine, ctx, typing);
+        engine.addListener(run.retry);
+        for (int i = 0; i < ids.length; i++) {
+            if (dependencies[i].length == 0) {
+                run.submit(i);
+            }
+        }
+        return run;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + ids.length + " steps, " + origin + ")";
+    }
+
+    public final class Run {
+        private final TaskEngine engine;
+        private final MacroContext ctx;
+        private final Function<MacroPlan, TextInjector.Strategy> typing;
+        private final StepState[] states = new StepState[ids.length];
+        private final int[] waiting = new int[ids.length];
+        private final long[] started = new long[ids.length];
+        private final long[] finished = new long[ids.length];
+        private final String[] errors = new String[ids.length];
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Run> done = new CompletableFuture<>();
+        // Ready steps the engine's queue had no room for, oldest first
+        private final ArrayDeque<Integer> held = new ArrayDeque<>();
+        private volatile boolean holding;
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        // Any engine event (a task starting or finishing) may have freed a queue slot
+        private final TaskEngine.Listener retry = handle -> {
+            if (holding) {
+                submitHeld();
+            }
+        };
+        private int unfinished = ids.length;
+        private long finishNanos;
+
+        private Run(TaskEngine engine, MacroContext ctx, Function<MacroPlan, TextInjector.Strategy> typing) {
+            this.engine = engine;
+            this.ctx = ctx;
+            this.typing = typing;
+            Arrays.fill(states, StepState.PENDING);
+            for (int i = 0; i < ids.length; i++) {
+                waiting[i] = dependencies[i].length;
+            }
+        }
+
+        public Workflow getWorkflow() {
+            return Workflow.this;
+        }
+
+        // Completes once every step has completed, failed, been cancelled or been skipped
+        public CompletableFuture<Run> completion() {
+            return done;
+        }
+
+        // Start to finish so far, or in total once complete
+        public synchronized long getElapsedNanos() {
+            return (finishNanos == 0 ? System.nanoTime() : finishNanos) - startNanos;
+        }
+
+        public synchronized boolean succeeded() {
+            for (StepState state : states) {
+                if (state != StepState.COMPLETED) return false;
+            }
+            return true;
+        }
+
+        public synchronized StepState getState(int step) {
+            return states[step];
+        }
+
+        // Failures name each step that failed or was cancelled, with its error, and count the skipped
+        public synchronized String describeFailures() {
+            StringBuilder sb = new StringBuilder();
+            int skipped = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (states[i] == StepState.FAILED || states[i] == StepState.CANCELLED) {
+                    if (sb.length() > 0) sb.append("; ");
+                    sb.append(ids[i]).append(' ').append(states[i].name().toLowerCase());
+                    if (errors[i] != null) sb.append(": ").append(errors[i]);
+                } else if (states[i] == StepState.SKIPPED) {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                sb.append(sb.length() > 0 ? "; " : "").append(skipped).append(" step(s) skipped");
+            }
+            return sb.toString();
+        }
+
+        private void submit(int step) {
+            synchronized (this) {
+                if (!held.isEmpty()) {
+                    // Keep the order steps became ready in
+                    held.add(step);
+                    return;
+                }
+            }
+            if (!trySubmit(step)) {
+                synchronized (this) {
+                    held.add(step);
+                    holding = true;
+                }
+                // A slot may have freed between the rejection and holding; no event would follow
+                submitHeld();
+            }
+        }
+
+        // One thread drains at a time; a request that arrives meanwhile makes it go round again
+        private void submitHeld() {
+            if (drainRequests.getAndIncrement() != 0) {
+                return;
+            }
+            int requests = 1;
+            do {
+                drainHeld();
+                requests = drainRequests.addAndGet(-requests);
+            } while (requests != 0);
+        }
+
+        private void drainHeld() {
+            while (true) {
+                int step;
+                synchronized (this) {
+                    Integer next = held.peek();
+                    if (next == null) {
+                        holding = false;
+                        return;
+                    }
+                    step = next;
+                }
+                if (!trySubmit(step)) {
+                    return;
+                }
+                synchronized (this) {
+                    held.poll();
+                }
+            }
+        }
+
+        private boolean trySubmit(int step) {
+            MacroPlan plan = plans[step];
+            synchronized (this) {
+                if (states[step] != StepState.PENDING) {
+                    return true;
+                }
+                states[step] = StepState.RUNNING;
+            }
+            if (engine.trySubmit(name + " / " + ids[step], () -> plan.run(ctx, typing.apply(plan)), handle -> finished(step, handle)) != null) {
+                return true;
+            }
+            synchronized (this) {
+                states[step] = StepState.PENDING;
+            }
+            return false;
+        }
+
+        // On the worker that ran the step (or the submitter, if the queue rejected it)
+        private void finished(int step, TaskEngine.TaskHandle handle) {
+            List<Integer> ready = new ArrayList<>();
+            synchronized (this) {
+                started[step] = handle.getStartedNanos();
+                finished[step] = handle.getFinishedNanos();
+                switch (handle.getState()) {
+                    case COMPLETED:
+                        states[step] = StepState.COMPLETED;
+                        for (int next : dependents[step]) {
+                            if (--waiting[next] == 0 && states[next] == StepState.PENDING) {
+                                ready.add(next);
+                            }
+                        }
+                        break;
+                    case CANCELLED:
+                        states[step] = StepState.CANCELLED;
+                        skipDownstream(step, "'" + ids[step] + "' cancelled");
+                        break;
+                    default:
+                        states[step] = StepState.FAILED;
+                        Throwable error = handle.getError();
+                        errors[step] = error == null ? "failed" : String.valueOf(error.getMessage());
+                        skipDownstream(step, "'" + ids[step] + "' failed");
+                        break;
+                }
+                unfinished--;
+            }
+            for (int next : ready) {
+                submit(next);
+            }
+            complete();
+        }
+
+        private void skipDownstream(int step, String reason) {
+            for (int next : dependents[step]) {
+                if (states[next] == StepState.PENDING) {
+                    states[next] = StepState.SKIPPED;
+                    errors[next] = reason;
+                    unfinished--;
+                    skipDownstream(next, reason);
+                }
+            }
+        }
+
+        private void complete() {
+            synchronized (this) {
+                if (unfinished > 0 || done.isDone()) {
+                    return;
+                }
+                finishNanos = System.nanoTime();
+            }
+            engine.removeListener(retry);
+            done.complete(this);
+        }
+
+        // Per-step table, then the chain that decided the total time
+        public synchronized List<String> getReport() {
+            List<String> lines = new ArrayList<>();
+            Map<StepState, Integer> counts = new EnumMap<>(StepState.class);
+            long stepSum = 0;
+            for (int i = 0; i < ids.length; i++) {
+                counts.merge(states[i], 1, Integer::sum);
+                if (started[i] != 0) stepSum += finished[i] - started[i];
+            }
+            long end = finishNanos == 0 ? System.nanoTime() : finishNanos;
+            lines.add(String.format("%s: %d step(s) in %.0f ms, %s", name, ids.length, (end - startNanos) / 1e6, counts));
+            lines.add(String.format("  %-16s %-10s %9s %9s  %s", "step", "state", "start ms", "ms", "after / error"));
+            for (int i = 0; i < ids.length; i++) {
+                boolean ran = started[i] != 0;
+                String after = dependencies[i].length == 0 ? "" : "after " + join(dependencies[i]);
+                lines.add(String.format("  %-16s %-10s %9s %9s  %s%s", ids[i], states[i],
+                    ran ? String.format("%.0f", (started[i] - startNanos) / 1e6) : "-",
+                    ran ? String.format("%.0f", (finished[i] - started[i]) / 1e6) : "-",
+                    after, errors[i] == null ? "" : (after.isEmpty() ? "" : "; ") + errors[i]));
+            }
+            List<Integer> path = criticalPath();
+            if (!path.isEmpty()) {
+                StringBuilder chain = new StringBuilder();
+                for (int step : path) {
+                    if (chain.length() > 0) chain.append(" -> ");
+                    chain.append(ids[step]).append(String.format(" (%.0f ms)", (finished[step] - started[step]) / 1e6));
+                }
+                long pathEnd = finished[path.get(path.size() - 1)];
+                lines.add(String.format("  critical path %.0f ms: %s", (pathEnd - startNanos) / 1e6, chain));
+                lines.add(String.format("  steps took %.0f ms in total, %.1fx overlapped", stepSum / 1e6,
+                    stepSum / (double) Math.max(1, pathEnd - startNanos)));
+            }
+            return lines;
+        }
+
+        // From the step that finished last, walk back through whichever dependency finished last,
+        // i.e. the one that actually held each step up
+        private List<Integer> criticalPath() {
+            int last = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (started[i] != 0 && (last < 0 || finished[i] > finished[last])) {
+                    last = i;
+                }
+            }
+            LinkedList<Integer> path = new LinkedList<>();
+            while (last >= 0) {
+                path.addFirst(last);
+                int gate = -1;
+                for (int d : dependencies[last]) {
+                    if (started[d] != 0 && (gate < 0 || finished[d] > finished[gate])) {
+                        gate = d;
+                    }
+                }
+                last = gate;
+            }
+            return path;
+        }
+
+        private String join(int[] steps) {
+            StringBuilder sb = new StringBuilder();
+            for (int s : steps) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(ids[s]);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Runs a workflow and prints its step table and critical path:
+    //   java taskautomation.Workflow [--parallel N] [--simulate] <file.workflow>
+    // --simulate runs on a SimulatedContext in real time: delays and typing take as long as they
+    // would, but nothing is launched or typed, so the overlap can be measured anywhere.
+    public static void main(String[] args) throws Exception {
+        int parallel = 4;
+        boolean simulate = false;
+        String file = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--parallel")) parallel = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--simulate")) simulate = true;
+            else file = args[i];
+        }
+        if (file == null) {
+            System.err.println("usage: java taskautomation.Workflow [--parallel N] [--simulate] <file.workflow>");
+            System.exit(2);
+        }
+        MacroLibrary library = new MacroLibrary();
+        Workflow workflow;
+        try {
+            workflow = load(Paths.get(file), library::get);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("workflow: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        MacroContext ctx;
+        ProcessLauncher launcher = null;
+        if (simulate) {
+            SimulatedContext simulated = new SimulatedContext(0);
+            simulated.setRealtime(true);
+            ctx = simulated;
+        } else {
+            launcher = new ProcessLauncher();
+            ctx = new AutomationContext(launcher);
+        }
+        TaskEngine engine = new TaskEngine(parallel, Math.max(1, workflow.getStepCount()));
+        Run run = workflow.start(engine, ctx, MacroPlan::getTyping);
+        run.completion().join();
+        for (String line : run.getReport()) {
+            System.out.println(line);
+        }
+        engine.shutdown();
+        if (launcher != null) {
+            launcher.shutdown();
+        }
+        System.exit(run.succeeded() ? 0 : 1);
+    }
+}
@@ -0,0 +1,34 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Runs the suite twice: throughput in ops/s with the GC profiler (allocation rate, gc.alloc.rate.norm),
+// then sample mode in microseconds for p50/p99/p99.9. Results are also written as JSON.
+//   java -cp benchmarks/target/benchmarks.jar taskautomation.BenchmarkRunner [benchmark regex]
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "taskautomation\\.\\w+Benchmark\\.";
+        new Runner(new OptionsBuilder()
+            .include(include)
+            .mode(Mode.Throughput)
+            .timeUnit(TimeUnit.SECONDS)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("jmh-throughput.json")
+            .build()).run();
+        new Runner(new OptionsBuilder()
+            .include(include)
+            .mode(Mode.SampleTime)
+            .timeUnit(TimeUnit.MICROSECONDS)
+            .resultFormat(ResultFormatType.JSON)
+            .result("jmh-latency.json")
+            .build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Execution journal costs. append is what a task thread pays: one non-blocking queue offer (once
+// the writer falls behind, the offer fails fast and the record is counted as dropped). write is the
+// writer thread's encode + CRC + copy into the mapped segment, including rollover.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class JournalBenchmark {
+    private Path dir;
+    private ExecutionJournal journal;
+    private ExecutionJournal.Entry entry;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = new ExecutionJournal(dir, 16 << 20, 4, false);
+        List<TaskEngine.Step> steps = new ArrayList<>();
+        String[] labels = {"1 launch notepad", "2 delay 1000", "3 type", "4 delay 500", "5 keys ctrl+s", "6 delay 500",
+            "7 type", "8 keys enter", "9 delay 500", "10 keys alt+f4"};
+        for (int i = 0; i < labels.length; i++) {
+            steps.add(new TaskEngine.Step(labels[i], 1_000_000L * (i + 1)));
+        }
+        long now = System.currentTimeMillis();
+        entry = new ExecutionJournal.Entry(0, 1, "Open Notepad", now, now + 3200, TaskEngine.State.COMPLETED, null, steps);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        journal.append(entry);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        journal.write(entry);
+    }
+}
@@ -0,0 +1,67 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// One animation frame of the background: the particle update alone, the back-buffer refresh
+// (BackgroundPanel.step) and a full step plus paint into an offscreen image.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ParticleBenchmark {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Param({"15", "1000", "5000"})
+    public int particles;
+
+    private ParticleField field;
+    private BackgroundPanel panel;
+    private BufferedImage target;
+    private Graphics2D g;
+    private long now;
+
+    @Setup
+    public void setup() {
+        field = new ParticleField(particles, WIDTH, HEIGHT, 42);
+        panel = new BackgroundPanel(particles, WIDTH, HEIGHT);
+        panel.setSize(WIDTH, HEIGHT);
+        target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = target.createGraphics();
+        now = System.nanoTime();
+        panel.step(now);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public ParticleField update() {
+        field.update(FRAME_NANOS / 1e9f, WIDTH - 3, HEIGHT - 3);
+        return field;
+    }
+
+    @Benchmark
+    public BackgroundPanel step() {
+        now += FRAME_NANOS;
+        panel.step(now);
+        return panel;
+    }
+
+    @Benchmark
+    public BufferedImage stepAndPaint() {
+        now += FRAME_NANOS;
+        panel.step(now);
+        panel.paint(g);
+        return target;
+    }
+}
@@ -0,0 +1,53 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one screen-wait poll past the capture itself: copying a prepared frame in, the row
+// checksums and the 9x8 dHash. Full HD against a dialog-sized region.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ScreenWatchBenchmark {
+    @Param({"1920x1080", "400x300"})
+    public String region;
+
+    private ScreenWatcher watcher;
+    private Rectangle area;
+
+    @Setup
+    public void setup() {
+        Rectangle screen = new Rectangle(1920, 1080);
+        int[] frame = new int[screen.width * screen.height];
+        Random rand = new Random(1);
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = rand.nextInt(0x1000000);
+        }
+        watcher = new ScreenWatcher(new ScreenWatcher.Source() {
+            @Override
+            public Rectangle bounds() {
+                return screen;
+            }
+
+            @Override
+            public void capture(Rectangle r, int[] pixels) {
+                for (int y = 0; y < r.height; y++) {
+                    System.arraycopy(frame, (r.y + y) * screen.width + r.x, pixels, y * r.width, r.width);
+                }
+            }
+        }, 15);
+        String[] size = region.split("x");
+        area = new Rectangle(0, 0, Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    @Benchmark
+    public long poll() {
+        return watcher.hash(area);
+    }
+}
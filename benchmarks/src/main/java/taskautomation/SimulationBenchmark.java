@@ -0,0 +1,68 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Built-in macros against the simulated driver. runPlan is the interpreter alone on one thread;
+// engineBatch pushes a batch of runs through a TaskEngine and waits for all of them, so it measures
+// queueing, worker hand-off and the input lock as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SimulationBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"Open Notepad", "Open Browser"})
+    public String task;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private MacroPlan plan;
+    private SimulatedContext context;
+    private TaskEngine engine;
+
+    @Setup
+    public void setup() {
+        plan = new MacroLibrary(Paths.get("no-such-macro-dir")).get(task);
+        context = new SimulatedContext(0);
+        engine = new TaskEngine(workers, BATCH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+        if (context.getViolationCount() > 0) {
+            throw new IllegalStateException(context.getViolations().toString());
+        }
+    }
+
+    @Benchmark
+    public long runPlan() throws Exception {
+        plan.run(context, plan.getTyping());
+        return context.getVirtualNanos();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long engineBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            engine.submit(task, () -> {
+                try {
+                    plan.run(context, plan.getTyping());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return context.getVirtualNanos();
+    }
+}
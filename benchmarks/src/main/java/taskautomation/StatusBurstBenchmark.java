@@ -0,0 +1,61 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+// showAnimatedStatus under burst load. postOnly has several threads hammering post() while the
+// 60 fps clock drains on the EDT; burstToLabel posts a burst and waits until a frame has
+// applied it, i.e. the latency a caller sees before the label changes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StatusBurstBenchmark {
+    private static final String[] MESSAGES = {"Running: Open Notepad", "Completed: Open Browser",
+        "Task failed: Open Email Client", "Voice command: open chrome", "Cancelled 2 task(s)"};
+    private static final Color[] COLORS = {new Color(0x00FFFF), new Color(0x00FF00), new Color(0xFF0000)};
+
+    @Param({"1", "100"})
+    public int burst;
+
+    private AnimationClock clock;
+    private JLabel label;
+    private StatusAnimator animator;
+
+    @Setup
+    public void setup() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            label = new JLabel("Select a task or use voice");
+            clock = new AnimationClock(60);
+            animator = new StatusAnimator(label, clock);
+            clock.onFrameEnd(animator::applyFrame);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        clock.stop();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void postOnly() {
+        for (int i = 0; i < burst; i++) {
+            animator.post(MESSAGES[i % MESSAGES.length], COLORS[i % COLORS.length], (i & 1) == 0);
+        }
+    }
+
+    @Benchmark
+    public String burstToLabel() throws Exception {
+        for (int i = 0; i < burst; i++) {
+            animator.post(MESSAGES[i % MESSAGES.length], COLORS[i % COLORS.length], (i & 1) == 0);
+        }
+        SwingUtilities.invokeAndWait(animator::applyFrame);
+        return label.getText();
+    }
+}
@@ -0,0 +1,58 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Schedule + cancel with many timeouts already pending: the timing wheel against a
+// ScheduledThreadPoolExecutor, whose heap makes both operations O(log n).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TimingWheelBenchmark {
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"1000", "100000"})
+    public int pending;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private long delay;
+
+    @Setup
+    public void setup() {
+        wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, "bench-wheel");
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        // Spread the background load from seconds to days out so every wheel level is populated
+        for (int i = 0; i < pending; i++) {
+            long nanos = TimeUnit.SECONDS.toNanos(10) + (long) i * TimeUnit.SECONDS.toNanos(86_400) / pending;
+            wheel.schedule(nanos, NOOP);
+            executor.schedule(NOOP, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        wheel.stop();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheelScheduleCancel() {
+        delay = (delay + 7_919_000_000L) % TimeUnit.HOURS.toNanos(30);
+        return wheel.schedule(TimeUnit.SECONDS.toNanos(10) + delay, NOOP).cancel();
+    }
+
+    @Benchmark
+    public boolean executorScheduleCancel() {
+        delay = (delay + 7_919_000_000L) % TimeUnit.HOURS.toNanos(30);
+        ScheduledFuture<?> future = executor.schedule(NOOP, TimeUnit.SECONDS.toNanos(10) + delay, TimeUnit.NANOSECONDS);
+        return future.cancel(false);
+    }
+}
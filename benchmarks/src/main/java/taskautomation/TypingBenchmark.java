@@ -0,0 +1,66 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// TextInjector dispatch cost against a stub keyboard, with pacing disabled so only the
+// per-character work (key lookup, shift tracking, deadline bookkeeping) is measured.
+// CLASSIC sleeps 50 ms per key by design and is left out.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TypingBenchmark {
+    @Param({"short", "shifted", "long"})
+    public String payload;
+
+    private TextInjector injector;
+    private String text;
+    private long events;
+
+    @Setup
+    public void setup() {
+        injector = new TextInjector(new TextInjector.Keyboard() {
+            @Override
+            public void keyPress(int keyCode) {
+                events += keyCode;
+            }
+
+            @Override
+            public void keyRelease(int keyCode) {
+                events -= keyCode - 1;
+            }
+        });
+        injector.setTargetDelayMs(0);
+        switch (payload) {
+            case "short":
+                text = "Hello from Task Automation!";
+                break;
+            case "shifted":
+                text = "Meeting NOTES: Q3 Review -- ACTION ITEMS (2024) for @Team_Leads";
+                break;
+            default:
+                StringBuilder sb = new StringBuilder();
+                while (sb.length() < 1000) {
+                    sb.append("The quick brown fox jumps over the lazy dog. ");
+                }
+                text = sb.toString();
+                break;
+        }
+    }
+
+    @Benchmark
+    public TextInjector.Result typeAdaptive() throws InterruptedException {
+        return injector.type(text, TextInjector.Strategy.ADAPTIVE);
+    }
+
+    @TearDown
+    public void check() {
+        if (events == 0) {
+            throw new IllegalStateException("stub keyboard received no events");
+        }
+    }
+}
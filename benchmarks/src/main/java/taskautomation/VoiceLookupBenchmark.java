@@ -0,0 +1,43 @@
+package taskautomation;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// CommandIndex lookups of noisy voice transcripts against growing command sets
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class VoiceLookupBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int commands;
+
+    private CommandIndex<Integer> index;
+    private final String[] queries = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        index = new CommandIndex<>();
+        for (int i = 0; i < commands; i++) {
+            index.add(CommandIndexBenchmark.phrase(i), i);
+        }
+        index.build();
+        Random rand = new Random(42);
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = CommandIndexBenchmark.mangle(CommandIndexBenchmark.phrase(rand.nextInt(commands)), rand);
+        }
+    }
+
+    @Benchmark
+    public List<CommandIndex.Match<Integer>> search() {
+        return index.search(queries[next++ & (QUERIES - 1)], 5);
+    }
+}